@@ -0,0 +1,24 @@
+#!/bin/sh
+#
+# Build the files for fast startup of short-lived reasoner processes (see src/FastStart.java):
+#
+#   build/clue.jar          the compiled classes; class data sharing only archives classes from jars
+#   build/clue-initial.kb   the snapshot of the initial knowledge base
+#   build/clue.jsa          the AppCDS archive of the classes loaded by a training run (JDK 13 or later)
+#
+# The archive only matches the JDK that built it and this jar, so run this script again after changing
+# either.
+
+set -e
+cd "$(dirname "$0")"
+
+rm -rf build
+mkdir -p build/classes
+javac -d build/classes src/*.java
+jar cf build/clue.jar -C build/classes .
+java -cp build/clue.jar FastStart -build build/clue-initial.kb
+
+# The training run plays a game from the snapshot, which loads every class a run needs.
+java -XX:ArchiveClassesAtExit=build/clue.jsa -cp build/clue.jar FastStart -snapshot build/clue-initial.kb > /dev/null
+echo "Wrote build/clue.jsa"
+echo "Run with: java -XX:SharedArchiveFile=build/clue.jsa -XX:TieredStopAtLevel=1 -cp build/clue.jar FastStart"
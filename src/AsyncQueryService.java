@@ -0,0 +1,357 @@
+/**
+ * Asynchronous query front end for a ClueReasoner shared by many callers. Neither the reasoner nor its
+ * solver is thread-safe, so every move and query goes through this service, which runs them one at a time
+ * on a single lane, in the order they were submitted:
+ *
+ *   - A query answers for the knowledge base as it is after exactly the moves submitted before it, so each
+ *     caller gets the answer for the version of the game it saw, even if later moves are already queued.
+ *   - Identical queries submitted while the first one is still waiting, with no move in between, share one
+ *     answer instead of being solved again.
+ *   - The queries waiting together at the head of the lane are answered as one batch by
+ *     SATSolver.testLiterals(), which reuses each model found for all the other open cells, and cells
+ *     already determined on the notepad are answered from it.
+ *
+ * The lane runs on a virtual thread when the Java runtime has them (Java 21 and later), and on a pooled
+ * daemon thread otherwise.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+public class AsyncQueryService {
+
+	private ClueReasoner reasoner;
+	private ExecutorService executor;
+	private boolean virtualThreads;
+
+	private final Object lock = new Object(); // guards the fields below
+	private ArrayDeque<Object> work = new ArrayDeque<Object>(); // moves and queries in order of submission
+	private HashMap<QueryKey, Query> waiting = new HashMap<QueryKey, Query>(); // queries not answered yet
+	private long movesSubmitted;
+	private boolean draining; // whether the lane is running
+	private boolean closed;
+	private long queriesSubmitted;
+	private long queriesCoalesced;
+	private long batchesSolved;
+
+	private long expectedVersion; // version of the reasoner after the moves applied by the lane
+
+	/**
+	 * @param reasoner	the reasoner, which must not be used directly while the service is in use
+	 */
+	public AsyncQueryService(ClueReasoner reasoner) {
+		this.reasoner = reasoner;
+		this.expectedVersion = reasoner.getVersion();
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			executor = (ExecutorService) method.invoke(null);
+			virtualThreads = true;
+		} catch (Exception e) {
+			// Before Java 21
+			executor = Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "query-lane");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Ask whether a player (or the case file) holds a card.
+	 *
+	 * @return a future of TRUE (1) if the player holds the card, FALSE (-1) if not, UNKNOWN (0) if it cannot be
+	 * 			determined, for the knowledge base after the moves submitted so far
+	 */
+	public CompletableFuture<Integer> query(String player, String card) {
+		int playerNum = reasoner.getPlayerNum(player);
+		int cardNum = reasoner.getCardNum(card);
+		if (playerNum < 0 || cardNum < 0) {
+			return failed(new IllegalArgumentException("Illegal cell: " + player + " " + card));
+		}
+		return query(playerNum, cardNum);
+	}
+
+	/**
+	 * Ask whether a player holds a card, using player and card numbers.
+	 *
+	 * @param player	the player number, or the number of players for the case file
+	 * @param card		the card number
+	 */
+	public CompletableFuture<Integer> query(int player, int card) {
+		if (player < 0 || player > reasoner.getPlayers().length || card < 0 || card >= reasoner.getCards().length) {
+			return failed(new IllegalArgumentException("Illegal cell: " + player + " " + card));
+		}
+		synchronized (lock) {
+			if (closed) {
+				return failed(new IllegalStateException("The service is closed"));
+			}
+			queriesSubmitted++;
+			QueryKey key = new QueryKey(movesSubmitted, player, card);
+			Query query = waiting.get(key);
+			if (query != null) {
+				queriesCoalesced++;
+			} else {
+				query = new Query(key);
+				waiting.put(key, query);
+				work.add(query);
+				startLane();
+			}
+			// Each caller gets its own future, so that one cancelling it does not affect the others.
+			return query.future.thenApply(Function.<Integer>identity());
+		}
+	}
+
+	/**
+	 * Record moves. They are applied after the queries submitted before them are answered, and before
+	 * the queries submitted after them.
+	 *
+	 * @param events	the moves, with player and card numbers of the reasoner
+	 *
+	 * @return a future completed when the moves are in the knowledge base, or completed exceptionally if
+	 * 			they were rejected
+	 */
+	public CompletableFuture<Void> apply(List<GameEvent> events) {
+		synchronized (lock) {
+			if (closed) {
+				return failed(new IllegalStateException("The service is closed"));
+			}
+			movesSubmitted++;
+			Move move = new Move(new ArrayList<GameEvent>(events));
+			work.add(move);
+			startLane();
+			return move.future;
+		}
+	}
+
+	public CompletableFuture<Void> apply(GameEvent event) {
+		return apply(Collections.singletonList(event));
+	}
+
+	/**
+	 * Get the number of move submissions so far, which numbers the versions of the game that queries see.
+	 */
+	public long getMovesSubmitted() {
+		synchronized (lock) {
+			return movesSubmitted;
+		}
+	}
+
+	public long getQueriesSubmitted() {
+		synchronized (lock) {
+			return queriesSubmitted;
+		}
+	}
+
+	/**
+	 * Get the number of queries answered by an identical query that was already waiting.
+	 */
+	public long getQueriesCoalesced() {
+		synchronized (lock) {
+			return queriesCoalesced;
+		}
+	}
+
+	public long getBatchesSolved() {
+		synchronized (lock) {
+			return batchesSolved;
+		}
+	}
+
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Refuse new requests. The requests already submitted are still answered.
+	 */
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			if (!draining) {
+				executor.shutdown();
+			}
+		}
+	}
+
+	private void startLane() {
+		if (!draining) {
+			draining = true;
+			executor.execute(new Runnable() {
+				public void run() {
+					runLane();
+				}
+			});
+		}
+	}
+
+	// Take the moves and batches of queries off the head of the queue in order, until it is empty.
+	private void runLane() {
+		boolean empty = false;
+		try {
+			while (true) {
+				Move move = null;
+				ArrayList<Query> batch = new ArrayList<Query>();
+				synchronized (lock) {
+					if (work.isEmpty()) {
+						empty = true;
+						draining = false;
+						if (closed) {
+							executor.shutdown();
+						}
+						return;
+					}
+					if (work.peek() instanceof Move) {
+						move = (Move) work.poll();
+					} else {
+						while (work.peek() instanceof Query) {
+							batch.add((Query) work.poll());
+						}
+					}
+				}
+				if (move != null) {
+					applyMove(move);
+				} else {
+					solve(batch);
+				}
+			}
+		} finally {
+			if (!empty) {
+				// Left by an unexpected throwable: start a new lane for the work still queued.
+				synchronized (lock) {
+					draining = false;
+					if (!work.isEmpty()) {
+						startLane();
+					} else if (closed) {
+						executor.shutdown();
+					}
+				}
+			}
+		}
+	}
+
+	private void applyMove(Move move) {
+		try {
+			reasoner.applyEvents(move.events);
+			move.future.complete(null);
+		} catch (Throwable e) {
+			move.future.completeExceptionally(e); // including errors such as a StackOverflowError of the solver
+		}
+		expectedVersion = reasoner.getVersion();
+	}
+
+	// Answer a batch of distinct queries, all for the same version of the knowledge base.
+	private void solve(ArrayList<Query> batch) {
+		try {
+			if (reasoner.getVersion() != expectedVersion) {
+				throw new IllegalStateException("The knowledge base was changed outside the service");
+			}
+			int[][] notepad = reasoner.getNotepad();
+			ArrayList<Query> open = new ArrayList<Query>();
+			for (Query query : batch) {
+				int status = notepad[query.key.player][query.key.card];
+				if (status != SATSolver.UNKNOWN) {
+					query.future.complete(status); // determined cells stay determined
+				} else {
+					open.add(query);
+				}
+			}
+			int[] literals = new int[open.size()];
+			for (int i = 0; i < literals.length; i++) {
+				literals[i] = reasoner.getPairNum(open.get(i).key.player, open.get(i).key.card);
+			}
+			int[] statuses = reasoner.getSolver().testLiterals(literals);
+			for (int i = 0; i < literals.length; i++) {
+				open.get(i).future.complete(statuses[i]);
+			}
+		} catch (Throwable e) {
+			for (Query query : batch) {
+				query.future.completeExceptionally(e);
+			}
+		} finally {
+			synchronized (lock) {
+				for (Query query : batch) {
+					waiting.remove(query.key);
+				}
+				batchesSolved++;
+			}
+		}
+	}
+
+	private static <T> CompletableFuture<T> failed(Throwable cause) {
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		future.completeExceptionally(cause);
+		return future;
+	}
+
+	/*
+	 * A query waiting on the lane, shared by the callers that asked the same thing of the same version.
+	 */
+	private static class Query {
+		final QueryKey key;
+		final CompletableFuture<Integer> future = new CompletableFuture<Integer>();
+
+		public Query(QueryKey key) {
+			this.key = key;
+		}
+	}
+
+	private static class Move {
+		final List<GameEvent> events;
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+		public Move(List<GameEvent> events) {
+			this.events = events;
+		}
+	}
+
+	/*
+	 * A cell and the number of moves submitted before the query, which identifies the version it is asked of.
+	 */
+	private static class QueryKey {
+		final long version;
+		final int player;
+		final int card;
+
+		public QueryKey(long version, int player, int card) {
+			this.version = version;
+			this.player = player;
+			this.card = card;
+		}
+
+		public int hashCode() {
+			return Long.hashCode(version) * 31 * 31 + player * 31 + card;
+		}
+
+		public boolean equals(Object other) {
+			if (!(other instanceof QueryKey)) {
+				return false;
+			}
+			QueryKey key = (QueryKey) other;
+			return version == key.version && player == key.player && card == key.card;
+		}
+	}
+}
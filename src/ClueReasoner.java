@@ -30,6 +30,7 @@ Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
  */
 
 import java.io.*;
+import java.util.*;
 
 public class ClueReasoner 
 {
@@ -42,8 +43,28 @@ public class ClueReasoner
     private String[] weapons = {"kn", "ca", "re", "ro", "pi", "wr"};
     private String[] rooms = {"ha", "lo", "di", "ki", "ba", "co", "bi", "li", "st"};
     private String[] cards;
+    private HashMap<String, Integer> playerNums;
+    private HashMap<String, Integer> cardNums;
+    private ArrayList<int[]> batch; // clauses of the batch being recorded, or null
+    private static HashSet<ClauseKey> initialClauseKeys; // the initial clauses, the same for every reasoner
+    private int numInitialClauses; // the solver's clauses start with this many initial clauses
+    private HashSet<ClauseKey> knownClauses; // other clauses of two or more literals in the solver
+    private BitSet knownUnits; // unit clauses in the solver, by unitIndex(); both kept once batches are used
+    private int[][] notepad; // status of each cell as of the last refresh, indexed by player and card
+    private BitSet changedVars = new BitSet(); // variables of the clauses added since the last refresh
+    private int cellsQueried; // number of cells queried by the last refresh
+    private boolean symmetryBreaking;
+    private long version; // number of clauses committed to the knowledge base
 
     public ClueReasoner(SATSolver solver)
+    {
+        this(solver, true);
+    }
+
+    /*
+     * Create a reasoner, leaving out the initial clauses when the solver is loaded some other way.
+     */
+    ClueReasoner(SATSolver solver, boolean withInitialClauses)
     {
         numPlayers = players.length;
 
@@ -57,50 +78,183 @@ public class ClueReasoner
         for (String card : rooms)
             cards[i++] = card;
         numCards = i;
+        indexNames();
+        initNotepad();
 
         // Initialize solver
         this.solver = solver;
-        addInitialClauses();
+        if (withInitialClauses)
+            addInitialClauses();
     }
 
-    private int getPlayerNum(String player) 
+    /*
+     * Copy a reasoner onto a solver that already holds its knowledge base, without adding the initial
+     * clauses again.
+     */
+    private ClueReasoner(ClueReasoner other, SATSolver solver)
     {
-        if (player.equals(caseFile))
-            return numPlayers;
-        for (int i = 0; i < numPlayers; i++)
-            if (player.equals(players[i]))
-                return i;
+        numPlayers = other.numPlayers;
+        numCards = other.numCards;
+        players = other.players.clone();
+        cards = other.cards;
+        indexNames();
+        notepad = new int[numPlayers + 1][];
+        for (int p = 0; p <= numPlayers; p++)
+            notepad[p] = other.notepad[p].clone();
+        changedVars = (BitSet) other.changedVars.clone();
+        symmetryBreaking = other.symmetryBreaking;
+        version = other.version;
+        numInitialClauses = other.numInitialClauses;
+        this.solver = solver;
+    }
+
+    /**
+     * Create a reasoner whose knowledge base starts as a copy of this one. Moves recorded on the copy do
+     * not affect this reasoner, so the copy can be used to try hypothetical moves.
+     *
+     * @return the copy
+     */
+    public ClueReasoner fork()
+    {
+        return withSolver(solver.fork());
+    }
+
+    /*
+     * Create a reasoner with the same players and cards as this one on a solver that already holds a copy
+     * of this reasoner's knowledge base.
+     */
+    ClueReasoner withSolver(SATSolver solver)
+    {
+        return new ClueReasoner(this, solver);
+    }
+
+    SATSolver getSolver()
+    {
+        return solver;
+    }
+
+    String[] getPlayers()
+    {
+        return players;
+    }
+
+    String[] getSuspects()
+    {
+        return suspects;
+    }
+
+    String[] getWeapons()
+    {
+        return weapons;
+    }
+
+    String[] getRooms()
+    {
+        return rooms;
+    }
+
+    String[] getCards()
+    {
+        return cards;
+    }
+
+    String getCaseFile()
+    {
+        return caseFile;
+    }
+
+    int[][] getNotepad()
+    {
+        return notepad;
+    }
+
+    BitSet getChangedVars()
+    {
+        return changedVars;
+    }
+
+    /*
+     * Replace the player order and notepad state, for a reasoner whose solver was loaded from a snapshot.
+     */
+    void restoreState(String[] players, int[][] notepad, BitSet changedVars)
+    {
+        this.players = players;
+        indexNames();
+        this.notepad = notepad;
+        this.changedVars = changedVars;
+    }
+
+    int getPlayerNum(String player) 
+    {
+        Integer num = playerNums.get(player);
+        if (num != null)
+            return num;
         System.out.println("Illegal player: " + player);
         return -1;
     }
 
-    private int getCardNum(String card)
+    int getCardNum(String card)
     {
-        for (int i = 0; i < numCards; i++)
-            if (card.equals(cards[i]))
-                return i;
+        Integer num = cardNums.get(card);
+        if (num != null)
+            return num;
         System.out.println("Illegal card: " + card);
         return -1;
     }
 
-    private int getPairNum(String player, String card) 
+    /*
+     * Look up the number of a player, which must not be the case file, for recording a move.
+     */
+    private int requirePlayerNum(String player)
+    {
+        Integer num = playerNums.get(player);
+        if (num == null || num == numPlayers)
+            throw new IllegalArgumentException("Illegal player: " + player);
+        return num;
+    }
+
+    private int requireCardNum(String card)
+    {
+        Integer num = cardNums.get(card);
+        if (num == null)
+            throw new IllegalArgumentException("Illegal card: " + card);
+        return num;
+    }
+
+    /*
+     * Number the players (the case file last) and cards by name, so that names are looked up in constant
+     * time. This must be called again whenever the player order changes.
+     */
+    private void indexNames()
+    {
+        playerNums = new HashMap<String, Integer>();
+        for (int i = 0; i < numPlayers; i++)
+            playerNums.put(players[i], i);
+        playerNums.put(caseFile, numPlayers);
+        cardNums = new HashMap<String, Integer>();
+        for (int i = 0; i < numCards; i++)
+            cardNums.put(cards[i], i);
+    }
+
+    int getPairNum(String player, String card) 
     {
         return getPairNum(getPlayerNum(player), getCardNum(card));
     }
 
-    private int getPairNum(int playerNum, int cardNum)
+    int getPairNum(int playerNum, int cardNum)
     {
         return playerNum * numCards + cardNum + 1;
     }    
 
     public void addInitialClauses() 
     {
+        int start = solver.clauses.size();
         // Each card is in at least one place (including case file).
         for (int c = 0; c < numCards; c++) {
             int[] clause = new int[numPlayers + 1];
             for (int p = 0; p <= numPlayers; p++)
                 clause[p] = getPairNum(p, c);
-            solver.addClause(clause);
+            addClause(clause);
         }    
         
         // If a card is one place, it cannot be in another place.
@@ -110,7 +264,7 @@ public class ClueReasoner
             		int[] clause = new int[2];
             		clause[0] = -getPairNum(i, c);
             		clause[1] = -getPairNum(j, c);
-            		solver.addClause(clause);
+            		addClause(clause);
             	}
             }
         }
@@ -120,19 +274,19 @@ public class ClueReasoner
         for (int i=0; i<suspects.length; i++) {
         	suspectClause[i] = getPairNum(caseFile, suspects[i]);
         }
-        solver.addClause(suspectClause);
+        addClause(suspectClause);
         
         int[] weaponClause = new int[weapons.length];
         for (int i=0; i<weapons.length; i++) {
         	weaponClause[i] = getPairNum(caseFile, weapons[i]);
         }
-        solver.addClause(weaponClause);
+        addClause(weaponClause);
         
         int[] roomClause = new int[rooms.length];
         for (int i=0; i<rooms.length; i++) {
         	roomClause[i] = getPairNum(caseFile, rooms[i]);
         }
-        solver.addClause(roomClause);
+        addClause(roomClause);
             
         // No two cards in each category can both be in the case file.
         for (int i=0; i<suspects.length-1; i++) {
@@ -140,7 +294,7 @@ public class ClueReasoner
         		int[] clause = new int[2];
         		clause[0] = -getPairNum(caseFile, suspects[i]);
         		clause[1] = -getPairNum(caseFile, suspects[j]);
-        		solver.addClause(clause);
+        		addClause(clause);
         	}
         }
         
@@ -149,7 +303,7 @@ public class ClueReasoner
         		int[] clause = new int[2];
         		clause[0] = -getPairNum(caseFile, weapons[i]);
         		clause[1] = -getPairNum(caseFile, weapons[j]);
-        		solver.addClause(clause);
+        		addClause(clause);
         	}
         }
         
@@ -158,62 +312,111 @@ public class ClueReasoner
         		int[] clause = new int[2];
         		clause[0] = -getPairNum(caseFile, rooms[i]);
         		clause[1] = -getPairNum(caseFile, rooms[j]);
-        		solver.addClause(clause);
+        		addClause(clause);
         	}
         }
+
+        // The initial clauses do not depend on the player order, so their keys are computed only once.
+        if (start == 0 && numInitialClauses == 0) {
+            numInitialClauses = solver.clauses.size();
+            synchronized (ClueReasoner.class) {
+                if (initialClauseKeys == null) {
+                    HashSet<ClauseKey> keys = new HashSet<ClauseKey>();
+                    for (int[] clause : solver.clauses)
+                        keys.add(new ClauseKey(clause));
+                    initialClauseKeys = keys;
+                }
+            }
+        }
     }
         
     public void hand(String player, String[] handCards) 
     {
-        for (int i=0; i<cards.length; i++) {
+        int[] handCardNums = new int[handCards.length];
+        for (int j=0; j<handCards.length; j++) {
+        	handCardNums[j] = requireCardNum(handCards[j]);
+        }
+        hand(requirePlayerNum(player), handCardNums);
+    }
+
+    /**
+     * Record the cards a player holds, using player and card numbers.
+     *
+     * @param player	the player number
+     * @param handCards	the numbers of the cards the player holds
+     */
+    public void hand(int player, int[] handCards) 
+    {
+        for (int i=0; i<numCards; i++) {
         	boolean found = false;
         	for (int j=0; j<handCards.length; j++) {
-        		if (cards[i].equals(handCards[j])) {
-        			solver.addClause(new int[] { getPairNum(player, handCards[j]) });
+        		if (handCards[j] == i) {
         			found = true;
         			break;
         		}
         	}
-        	if (!found) {
-        		solver.addClause(new int[] { -getPairNum(player, cards[i]) });
+        	if (found) {
+        		addClause(new int[] { getPairNum(player, i) });
+        	} else {
+        		addClause(new int[] { -getPairNum(player, i) });
         	}
         }
     }
 
+    /**
+     * Record a suggestion.
+     *
+     * @throws IllegalArgumentException if a name is not a player or card, or a card is shown without a refuter
+     */
     public void suggest(String suggester, String card1, String card2, 
                         String card3, String refuter, String cardShown) 
     {
-        if (refuter != null) {
+        if (refuter == null && cardShown != null)
+            throw new IllegalArgumentException("Card shown without a refuter: " + cardShown);
+        suggest(requirePlayerNum(suggester), requireCardNum(card1), requireCardNum(card2),
+                requireCardNum(card3), (refuter == null) ? -1 : requirePlayerNum(refuter),
+                (cardShown == null) ? -1 : requireCardNum(cardShown));
+    }
+
+    /**
+     * Record a suggestion, using player and card numbers.
+     *
+     * @param suggester	the number of the player making the suggestion
+     * @param card1		the number of the first card suggested
+     * @param card2		the number of the second card suggested
+     * @param card3		the number of the third card suggested
+     * @param refuter	the number of the player refuting the suggestion, or -1 if nobody did
+     * @param cardShown	the number of the card shown, or -1 if the card was not seen
+     */
+    public void suggest(int suggester, int card1, int card2, int card3, int refuter, int cardShown) 
+    {
+        if (refuter >= 0) {
         	addNegativeClausesAfterSuggestion(suggester, card1, card2, card3, refuter);
-        	if (cardShown != null) {
-        		solver.addClause(new int[] { getPairNum(refuter, cardShown) });
+        	if (cardShown >= 0) {
+        		addClause(new int[] { getPairNum(refuter, cardShown) });
         	} else {
         		int[] clause = new int[3];
         		clause[0] = getPairNum(refuter, card1);
         		clause[1] = getPairNum(refuter, card2);
         		clause[2] = getPairNum(refuter, card3);
-        		solver.addClause(clause);
+        		addClause(clause);
         	}
         } else {
-        	for (int i=0; i<numPlayers; i++) {
-        		if (!players[i].equals(suggester)) {
-        			addNegativeClausesAfterSuggestion(suggester, card1, card2, card3, suggester);
-        		}
-        	}
+        	addNegativeClausesAfterSuggestion(suggester, card1, card2, card3, suggester);
         }
     }
     
     /*
      * Helper method to add clauses about players not having cards after a suggestion
      */
-    private void addNegativeClausesAfterSuggestion(String suggester, String card1, String card2, 
-                        String card3, String refuter) {
-    	int i = getPlayerNum(suggester)+1;
-    	while (i != getPlayerNum(refuter)) {
+    private void addNegativeClausesAfterSuggestion(int suggester, int card1, int card2, 
+                        int card3, int refuter) {
+    	int i = suggester+1;
+    	while (i != refuter) {
     		if (i < numPlayers) {
-    			solver.addClause(new int[] { -getPairNum(players[i], card1) });
-    			solver.addClause(new int[] { -getPairNum(players[i], card2) });
-    			solver.addClause(new int[] { -getPairNum(players[i], card3) });
+    			addClause(new int[] { -getPairNum(i, card1) });
+    			addClause(new int[] { -getPairNum(i, card2) });
+    			addClause(new int[] { -getPairNum(i, card3) });
     			i++;
     		} else {
     			i = 0;
@@ -223,20 +426,175 @@ public class ClueReasoner
 
     public void accuse(String accuser, String card1, String card2, 
                        String card3, boolean isCorrect)
+    {
+        accuse(requirePlayerNum(accuser), requireCardNum(card1), requireCardNum(card2),
+               requireCardNum(card3), isCorrect);
+    }
+
+    /**
+     * Record an accusation, using player and card numbers.
+     *
+     * @param accuser	the number of the player making the accusation
+     * @param card1		the number of the first card accused
+     * @param card2		the number of the second card accused
+     * @param card3		the number of the third card accused
+     * @param isCorrect	whether the accusation was correct
+     */
+    public void accuse(int accuser, int card1, int card2, int card3, boolean isCorrect)
     {
         if (isCorrect) {
-        	solver.addClause(new int[] { getPairNum(caseFile, card1) });
-        	solver.addClause(new int[] { getPairNum(caseFile, card2) });
-        	solver.addClause(new int[] { getPairNum(caseFile, card3) });
+        	addClause(new int[] { getPairNum(numPlayers, card1) });
+        	addClause(new int[] { getPairNum(numPlayers, card2) });
+        	addClause(new int[] { getPairNum(numPlayers, card3) });
         } else {
         	int[] clause = new int[3];
-        	clause[0] = -getPairNum(caseFile, card1);
-        	clause[1] = -getPairNum(caseFile, card2);
-        	clause[2] = -getPairNum(caseFile, card3);
-        	solver.addClause(clause);
+        	clause[0] = -getPairNum(numPlayers, card1);
+        	clause[1] = -getPairNum(numPlayers, card2);
+        	clause[2] = -getPairNum(numPlayers, card3);
+        	addClause(clause);
         }
     }
 
+    /**
+     * Record a batch of game events atomically. Every event is checked before any clause is added, so an
+     * invalid event leaves the knowledge base unchanged. Clauses that the batch repeats, or that are already
+     * in the knowledge base, are only added once.
+     *
+     * @param events	the events, with player and card numbers of this reasoner
+     *
+     * @throws IllegalArgumentException if an event refers to a player or card that does not exist, or shows a
+     *         card without a refuter
+     */
+    public void applyEvents(List<GameEvent> events)
+    {
+        for (GameEvent event : events)
+            checkEvent(event);
+
+        if (knownClauses == null) {
+            // The initial clauses are in initialClauseKeys already, so only the clauses after them are hashed.
+            if (solver.clauses.size() < numInitialClauses)
+                numInitialClauses = 0;
+            knownClauses = new HashSet<ClauseKey>();
+            knownUnits = new BitSet();
+            for (int i = numInitialClauses; i < solver.clauses.size(); i++)
+                rememberClause(solver.clauses.get(i));
+        }
+        batch = new ArrayList<int[]>();
+        try {
+            for (GameEvent event : events) {
+                if (event.type == GameEvent.HAND)
+                    hand(event.player, event.cards);
+                else if (event.type == GameEvent.SUGGEST)
+                    suggest(event.player, event.cards[0], event.cards[1], event.cards[2],
+                            event.refuter, event.cardShown);
+                else
+                    accuse(event.player, event.cards[0], event.cards[1], event.cards[2], event.isCorrect);
+            }
+            for (int[] clause : batch)
+                if (rememberClause(clause))
+                    commitClause(clause);
+        } finally {
+            batch = null;
+        }
+    }
+
+    private void checkEvent(GameEvent event)
+    {
+        checkNum(event.player, numPlayers, "player", event);
+        for (int card : event.cards)
+            checkNum(card, numCards, "card", event);
+        if (event.type == GameEvent.SUGGEST || event.type == GameEvent.ACCUSE) {
+            if (event.cards.length != 3)
+                throw new IllegalArgumentException("Expected 3 cards: " + event);
+        } else if (event.type != GameEvent.HAND) {
+            throw new IllegalArgumentException("Illegal event type: " + event);
+        }
+        if (event.type == GameEvent.SUGGEST) {
+            if (event.refuter != -1)
+                checkNum(event.refuter, numPlayers, "player", event);
+            if (event.cardShown != -1) {
+                if (event.refuter == -1)
+                    throw new IllegalArgumentException("Card shown without a refuter: " + event);
+                checkNum(event.cardShown, numCards, "card", event);
+            }
+        }
+    }
+
+    private void checkNum(int num, int limit, String kind, GameEvent event)
+    {
+        if (num < 0 || num >= limit)
+            throw new IllegalArgumentException("Illegal " + kind + " number " + num + ": " + event);
+    }
+
+    /*
+     * Add a clause to the solver, or to the current batch while a batch of events is being recorded.
+     */
+    private void addClause(int[] clause)
+    {
+        if (batch != null)
+            batch.add(clause);
+        else {
+            commitClause(clause);
+            if (knownClauses != null)
+                rememberClause(clause);
+        }
+    }
+
+    /*
+     * Remember that a clause is in the knowledge base. Unit clauses, which most moves add, are kept in a
+     * bitset rather than hashed.
+     *
+     * @return true if the clause was not known to be in it yet
+     */
+    private boolean rememberClause(int[] clause)
+    {
+        if (clause.length == 1) {
+            int index = unitIndex(clause[0]);
+            if (knownUnits.get(index))
+                return false;
+            knownUnits.set(index);
+            return true;
+        }
+        ClauseKey key = new ClauseKey(clause);
+        if (numInitialClauses > 0 && initialClauseKeys.contains(key))
+            return false;
+        return knownClauses.add(key);
+    }
+
+    private static int unitIndex(int literal)
+    {
+        return (literal > 0) ? 2 * literal : -2 * literal + 1;
+    }
+
+    /*
+     * Add clauses that do not come from moves, such as a knowledge base built elsewhere, as if a move had
+     * added them.
+     */
+    void addClauses(List<int[]> clauses)
+    {
+        for (int[] clause : clauses)
+            addClause(clause);
+    }
+
+    /*
+     * Add a clause to the solver and remember which notepad cells it may affect.
+     */
+    private void commitClause(int[] clause)
+    {
+        solver.addClause(clause);
+        version++;
+        for (int literal : clause)
+            changedVars.set(Math.abs(literal));
+    }
+
+    /**
+     * Get the version of the knowledge base, which changes whenever a move adds clauses to it.
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
     public int query(String player, String card) 
     {
         return solver.testLiteral(getPairNum(player, card));
@@ -254,20 +612,332 @@ public class ClueReasoner
         
     public void printNotepad() 
     {
+        refreshNotepad();
         PrintStream out = System.out;
         for (String player : players) {
             out.print("\t" + player);
         }
         out.println("\t" + caseFile);
-        for (String card : cards) {
-            out.print(card + "\t");
-            for (String player : players) {
-                out.print(queryString(query(player, card)) + "\t");
+        for (int c = 0; c < numCards; c++) {
+            out.print(cards[c] + "\t");
+            for (int p = 0; p < numPlayers; p++) {
+                out.print(queryString(notepad[p][c]) + "\t");
             }
-            out.println(queryString(query(caseFile, card)));
+            out.println(queryString(notepad[numPlayers][c]));
         }
     }
-    
+
+    /**
+     * Print the notepad cells that became determined since the last refresh, one per line.
+     */
+    public void printNotepadChanges()
+    {
+        PrintStream out = System.out;
+        for (CellChange change : refreshNotepad()) {
+            String player = (change.player < numPlayers) ? players[change.player] : caseFile;
+            out.println(player + "\t" + cards[change.card] + "\t" + queryString(change.status));
+        }
+    }
+
+    /**
+     * Bring the notepad up to date with the knowledge base. Since knowledge only grows, determined cells are
+     * never queried again. An undetermined cell is only queried if it is connected to a clause added since
+     * the last refresh through the residual knowledge base: the clauses that no determined cell satisfies,
+     * restricted to the undetermined cells. The rest of the residual knowledge base shares no cell with that
+     * part, so as long as it stays satisfiable, the other cells keep both of their values. The cells of
+     * interchangeable cards for the same player share one query, see findCardClasses().
+     *
+     * @return the cells that became determined
+     */
+    public ArrayList<CellChange> refreshNotepad()
+    {
+        ArrayList<CellChange> changes = new ArrayList<CellChange>();
+        cellsQueried = 0;
+        if (changedVars.isEmpty())
+            return changes;
+
+        int[] parent = residualComponents();
+        HashSet<Integer> changedComponents = new HashSet<Integer>();
+        for (int var = changedVars.nextSetBit(0); var >= 0; var = changedVars.nextSetBit(var + 1))
+            if (var < parent.length && cellValue(var) == SATSolver.UNKNOWN)
+                changedComponents.add(findComponent(parent, var));
+        changedVars.clear();
+
+        ArrayList<Integer> openCells = new ArrayList<Integer>();
+        int numOpen = 0;
+        for (int p = 0; p <= numPlayers; p++) {
+            for (int c = 0; c < numCards; c++) {
+                int var = getPairNum(p, c);
+                if (notepad[p][c] != SATSolver.UNKNOWN)
+                    continue;
+                numOpen++;
+                if (changedComponents.contains(findComponent(parent, var)))
+                    openCells.add(var);
+            }
+        }
+        // If the new clauses made the knowledge base unsatisfiable, every cell changes, connected or not.
+        if (openCells.size() < numOpen && !solver.isConsistent()) {
+            openCells.clear();
+            for (int p = 0; p <= numPlayers; p++)
+                for (int c = 0; c < numCards; c++)
+                    if (notepad[p][c] == SATSolver.UNKNOWN)
+                        openCells.add(getPairNum(p, c));
+        }
+        cellsQueried = openCells.size();
+
+        // Settle what probing can, and run full searches only for the rest.
+        int[] literals = new int[openCells.size()];
+        for (int i = 0; i < literals.length; i++)
+            literals[i] = openCells.get(i);
+        int[] statuses = solver.probe(literals);
+        boolean searchNeeded = false;
+        for (int status : statuses)
+            searchNeeded |= status == SATSolver.UNKNOWN;
+        int[] cardClass = null;
+        if (searchNeeded) {
+            cardClass = findCardClasses();
+            if (symmetryBreaking)
+                breakSymmetries(cardClass);
+        }
+
+        // Cells of interchangeable cards for the same player have the same status, so one query is enough.
+        HashMap<Integer, Integer> orbitStatuses = new HashMap<Integer, Integer>();
+        for (int i = 0; i < literals.length; i++) {
+            int p = (literals[i] - 1) / numCards;
+            int c = (literals[i] - 1) % numCards;
+            if (statuses[i] == SATSolver.UNKNOWN) {
+                int orbit = getPairNum(p, cardClass[c]);
+                Integer status = orbitStatuses.get(orbit);
+                if (status == null) {
+                    status = solver.testLiteral(literals[i]);
+                    orbitStatuses.put(orbit, status);
+                }
+                statuses[i] = status;
+            }
+            notepad[p][c] = statuses[i];
+            if (notepad[p][c] != SATSolver.UNKNOWN)
+                changes.add(new CellChange(p, c, notepad[p][c]));
+        }
+        return changes;
+    }
+
+    /**
+     * Turn symmetry breaking on or off. When it is on, the solver is given clauses that keep only one
+     * ordering of the cards that the knowledge base cannot tell apart, whenever the notepad is refreshed.
+     * This never changes a query's answer. It is off by default: it spares the search from trying every
+     * ordering of such cards, but each query becomes a clause over all the cells of its orbit instead of a
+     * single literal, and with DPLLSolver that costs more than it saves on the Clue knowledge base.
+     */
+    public void setSymmetryBreaking(boolean symmetryBreaking)
+    {
+        this.symmetryBreaking = symmetryBreaking;
+    }
+
+    public boolean isSymmetryBreaking()
+    {
+        return symmetryBreaking;
+    }
+
+    /*
+     * Find the classes of interchangeable cards: two cards are interchangeable if swapping them in the
+     * cells of every player maps the clauses of the knowledge base onto themselves. Early in a game this
+     * holds for all the cards of a category that no move has mentioned.
+     *
+     * @return the first card of the class of each card
+     */
+    private int[] findCardClasses()
+    {
+        HashSet<ClauseKey> clauseSet = new HashSet<ClauseKey>();
+        for (int[] clause : solver.clauses)
+            clauseSet.add(new ClauseKey(clause));
+        int[] cardClass = new int[numCards];
+        for (int c = 0; c < numCards; c++) {
+            cardClass[c] = c;
+            for (int first = 0; first < c; first++) {
+                if (cardClass[first] == first && isSymmetry(clauseSet, first, c)) {
+                    cardClass[c] = first;
+                    break;
+                }
+            }
+        }
+        return cardClass;
+    }
+
+    /*
+     * Give the solver lex-leader clauses saying that the cards of each class lie in order of place (the
+     * case file last), together with the orbit of each of their cells, which is the same player's cells of
+     * the other cards of the class.
+     */
+    private void breakSymmetries(int[] cardClass)
+    {
+        ArrayList<int[]> breakingClauses = new ArrayList<int[]>();
+        HashMap<Integer, int[]> orbits = new HashMap<Integer, int[]>();
+        for (int first = 0; first < numCards; first++) {
+            if (cardClass[first] != first)
+                continue;
+            ArrayList<Integer> members = new ArrayList<Integer>();
+            for (int c = first; c < numCards; c++)
+                if (cardClass[c] == first)
+                    members.add(c);
+            if (members.size() < 2)
+                continue;
+
+            // The place of each card is at most the place of the next one.
+            for (int k = 0; k + 1 < members.size(); k++)
+                for (int p = 1; p <= numPlayers; p++)
+                    for (int q = 0; q < p; q++)
+                        breakingClauses.add(new int[] { -getPairNum(p, members.get(k)), -getPairNum(q, members.get(k + 1)) });
+
+            for (int p = 0; p <= numPlayers; p++) {
+                int[] positive = new int[members.size()];
+                int[] negative = new int[members.size()];
+                for (int k = 0; k < members.size(); k++) {
+                    positive[k] = getPairNum(p, members.get(k));
+                    negative[k] = -positive[k];
+                }
+                for (int k = 0; k < members.size(); k++) {
+                    orbits.put(positive[k], positive);
+                    orbits.put(negative[k], negative);
+                }
+            }
+        }
+        solver.setSymmetries(breakingClauses, orbits);
+    }
+
+    // Check if swapping two cards in the cells of every player maps each clause to a clause of the set.
+    private boolean isSymmetry(HashSet<ClauseKey> clauseSet, int card1, int card2)
+    {
+        int numVars = (numPlayers + 1) * numCards;
+        for (int[] clause : solver.clauses) {
+            int[] image = new int[clause.length];
+            boolean changed = false;
+            for (int i = 0; i < clause.length; i++) {
+                int var = Math.abs(clause[i]);
+                int c = (var - 1) % numCards;
+                int swapped = var;
+                if (var <= numVars && c == card1)
+                    swapped = var - card1 + card2;
+                else if (var <= numVars && c == card2)
+                    swapped = var - card2 + card1;
+                changed |= swapped != var;
+                image[i] = (clause[i] > 0) ? swapped : -swapped;
+            }
+            if (changed && !clauseSet.contains(new ClauseKey(image)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the status of a notepad cell as of the last refresh.
+     *
+     * @return TRUE (1) if the player holds the card, FALSE (-1) if not, UNKNOWN (0) if undetermined
+     */
+    public int getNotepadStatus(String player, String card)
+    {
+        return notepad[getPlayerNum(player)][getCardNum(card)];
+    }
+
+    /**
+     * Get the number of cells the last refresh of the notepad had to query.
+     */
+    public int getCellsQueried()
+    {
+        return cellsQueried;
+    }
+
+    private void initNotepad()
+    {
+        notepad = new int[numPlayers + 1][numCards];
+    }
+
+    /*
+     * Get the status of a cell on the notepad as a literal: TRUE if the literal is known to be true, FALSE if
+     * it is known to be false, UNKNOWN otherwise.
+     */
+    private int cellValue(int literal)
+    {
+        int var = Math.abs(literal);
+        int status = notepad[(var - 1) / numCards][(var - 1) % numCards];
+        return (literal > 0) ? status : -status;
+    }
+
+    /*
+     * Find the connected components of the residual knowledge base, whose clauses are those that no
+     * determined cell satisfies, over the undetermined cells.
+     *
+     * @return a union-find forest over the variables, see findComponent()
+     */
+    private int[] residualComponents()
+    {
+        int[] parent = new int[(numPlayers + 1) * numCards + 1];
+        for (int var = 0; var < parent.length; var++)
+            parent[var] = var;
+        for (int[] clause : solver.clauses) {
+            boolean satisfied = false;
+            for (int literal : clause)
+                satisfied |= cellValue(literal) == SATSolver.TRUE;
+            if (satisfied)
+                continue;
+            int first = 0;
+            for (int literal : clause) {
+                if (cellValue(literal) != SATSolver.UNKNOWN)
+                    continue;
+                int root = findComponent(parent, Math.abs(literal));
+                if (first == 0)
+                    first = root;
+                else if (root != first)
+                    parent[root] = first;
+            }
+        }
+        return parent;
+    }
+
+    private static int findComponent(int[] parent, int var)
+    {
+        while (parent[var] != var) {
+            parent[var] = parent[parent[var]];
+            var = parent[var];
+        }
+        return var;
+    }
+
+    /**
+     * Compute the probability of every notepad cell, assuming all assignments of cards consistent with the
+     * knowledge base are equally likely. All cells come from a single model count of the knowledge base.
+     *
+     * @return the probabilities indexed by player number (the case file last) and card number
+     */
+    public double[][] getProbabilities()
+    {
+        ModelCounter counter = new ModelCounter();
+        for (int[] clause : solver.clauses)
+            counter.addClause(clause);
+        counter.countModels();
+        double[][] probabilities = new double[numPlayers + 1][numCards];
+        for (int p = 0; p <= numPlayers; p++)
+            for (int c = 0; c < numCards; c++)
+                probabilities[p][c] = counter.getProbability(getPairNum(p, c));
+        return probabilities;
+    }
+
+    public void printProbabilityNotepad()
+    {
+        PrintStream out = System.out;
+        double[][] probabilities = getProbabilities();
+        for (String player : players) {
+            out.print("\t" + player);
+        }
+        out.println("\t" + caseFile);
+        for (int c = 0; c < numCards; c++) {
+            out.print(cards[c]);
+            for (int p = 0; p <= numPlayers; p++) {
+                out.printf("\t%.2f", probabilities[p][c]);
+            }
+            out.println();
+        }
+    }
+
     /**
      * FINAL PROJECT
      * 
@@ -278,7 +948,7 @@ public class ClueReasoner
      * Statistics of each game:
      * Game 1: 722 clauses and 1413 literals, counting cards does not matter
      * Game 2: 673 clauses and 1362 literals, counting cards does matter
-     * Game 3: 776 clauses and 1465 literals, counting cards does matter
+     * Game 3: 716 clauses and 1405 literals, counting cards does matter
      * 
      * @param gameNumber	the number of the game chosen, from 1 to 3
      */
@@ -425,5 +1095,49 @@ public class ClueReasoner
     /* Change the player order from default to a customized order */
     private void changePlayerOrder() {
     	players = new String[]{"sc", "wh", "gr", "mu", "pe", "pl"};
+    	indexNames();
+    }
+
+    /*
+     * A notepad cell that became determined.
+     */
+    public static class CellChange
+    {
+        public final int player;
+        public final int card;
+        public final int status;
+
+        public CellChange(int player, int card, int status)
+        {
+            this.player = player;
+            this.card = card;
+            this.status = status;
+        }
+    }
+
+    /*
+     * A clause with its literals sorted, used to recognize clauses that were already added.
+     */
+    private static class ClauseKey
+    {
+        int[] literals;
+        int hash;
+
+        public ClauseKey(int[] clause)
+        {
+            literals = clause.clone();
+            Arrays.sort(literals);
+            hash = Arrays.hashCode(literals);
+        }
+
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        public boolean equals(Object other)
+        {
+            return (other instanceof ClauseKey) && Arrays.equals(literals, ((ClauseKey) other).literals);
+        }
     }
 }
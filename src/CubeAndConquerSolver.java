@@ -0,0 +1,384 @@
+/**
+ * Cube-and-conquer solver. A lookahead splits the formula into cubes (partial assignments that together
+ * cover every assignment), and the cubes are solved by a pool of CubeWorker processes on this machine,
+ * each a separate JVM that receives the knowledge base once and then one cube at a time through its
+ * standard input and output. As soon as one worker finds a cube satisfiable, the others are stopped.
+ *
+ * The lookahead assumes each candidate symbol both ways with unit propagation only. A side that leads to
+ * a conflict makes the other side forced; otherwise the symbol whose two sides assign the most symbols
+ * (the product of both counts) is the one branched on.
+ *
+ * A worker cannot be interrupted in the middle of a cube, so when one cube is found satisfiable, the workers
+ * still solving other cubes are killed, and the next query starts new processes for them and sends them the
+ * knowledge base again. Queries that are satisfiable early in the search pay this cost for most workers.
+ * Idle workers are stopped cleanly by close().
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class CubeAndConquerSolver extends SATSolver {
+
+	public static final int DEFAULT_CUBE_DEPTH = 4;
+	public static final int MAX_LOOKAHEAD_SYMBOLS = 64; // most frequent symbols tried at each split
+
+	private int numWorkers;
+	private int cubeDepth;
+	private Worker[] workers;
+	private ExecutorService executor;
+
+	public CubeAndConquerSolver() {
+		this(Runtime.getRuntime().availableProcessors(), DEFAULT_CUBE_DEPTH);
+	}
+
+	/**
+	 * @param numWorkers	the number of worker processes
+	 * @param cubeDepth		the number of split decisions in a cube, so that there are at most 2^cubeDepth cubes
+	 */
+	public CubeAndConquerSolver(int numWorkers, int cubeDepth) {
+		super();
+		this.numWorkers = numWorkers;
+		this.cubeDepth = cubeDepth;
+	}
+
+	protected SATSolver newSolver() {
+		return new CubeAndConquerSolver(numWorkers, cubeDepth);
+	}
+
+	/**
+	 * Decide if the query clauses can make the knowledge base satisfiable or not, by splitting the formula
+	 * into cubes and solving them in the worker processes.
+	 *
+	 * @return true if the set of clauses is satisfiable, false otherwise
+	 */
+	public boolean makeQuery() {
+		ArrayList<int[]> allClauses = new ArrayList<int[]>(clauses);
+		allClauses.addAll(queryClauses);
+		UnitPropagator propagator = new UnitPropagator(allClauses);
+		if (!propagator.isConsistent()) {
+			return false;
+		}
+		ConcurrentLinkedQueue<int[]> cubes = new ConcurrentLinkedQueue<int[]>();
+		split(propagator, allClauses, new int[0], cubeDepth, cubes);
+		if (cubes.isEmpty()) {
+			return false;
+		}
+		return conquer(new ArrayList<int[]>(queryClauses), cubes);
+	}
+
+	/**
+	 * Stop the worker processes. They are started again by the next query.
+	 */
+	public synchronized void close() {
+		if (workers != null) {
+			for (Worker worker : workers) {
+				worker.exit();
+			}
+		}
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	public int getNumWorkers() {
+		return numWorkers;
+	}
+
+	/**
+	 * Split the formula under a partial assignment into cubes by lookahead.
+	 *
+	 * @param propagator	the propagator of the formula
+	 * @param clauses		the clauses of the formula
+	 * @param cube			the literals assumed so far
+	 * @param depth			the number of splits left
+	 * @param cubes			the queue that receives the cubes
+	 */
+	private void split(UnitPropagator propagator, ArrayList<int[]> clauses, int[] cube, int depth,
+			Queue<int[]> cubes) {
+		int[] values = propagator.propagate(cube);
+		if (values == null) {
+			return;
+		}
+		if (depth == 0) {
+			cubes.add(cube);
+			return;
+		}
+
+		int bestSymbol = 0;
+		long bestScore = -1;
+		for (int symbol : candidateSymbols(clauses, values)) {
+			int[] valuesT = propagator.propagate(extend(cube, symbol));
+			int[] valuesF = propagator.propagate(extend(cube, -symbol));
+			if (valuesT == null && valuesF == null) {
+				return; // the cube is refuted
+			} else if (valuesT == null || valuesF == null) {
+				split(propagator, clauses, extend(cube, (valuesT == null) ? -symbol : symbol), depth, cubes);
+				return;
+			}
+			long score = (long) (countAssigned(valuesT) - countAssigned(values) + 1)
+					* (countAssigned(valuesF) - countAssigned(values) + 1);
+			if (score > bestScore) {
+				bestScore = score;
+				bestSymbol = symbol;
+			}
+		}
+		if (bestSymbol == 0) {
+			cubes.add(cube); // every symbol is assigned
+			return;
+		}
+		split(propagator, clauses, extend(cube, bestSymbol), depth - 1, cubes);
+		split(propagator, clauses, extend(cube, -bestSymbol), depth - 1, cubes);
+	}
+
+	/**
+	 * Solve the cubes in the worker processes until one of them is satisfiable or all of them are not.
+	 *
+	 * @param query	the query clauses, which are sent with every cube while the knowledge base is sent once
+	 * @param cubes	the cubes
+	 *
+	 * @return true if some cube is satisfiable, false otherwise
+	 *
+	 * @throws RuntimeException if a cube could not be solved and no other cube was satisfiable
+	 */
+	private synchronized boolean conquer(final ArrayList<int[]> query, final ConcurrentLinkedQueue<int[]> cubes) {
+		if (workers == null) {
+			workers = new Worker[numWorkers];
+			for (int i = 0; i < numWorkers; i++) {
+				workers[i] = new Worker();
+			}
+		}
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(numWorkers, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "cube-worker");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		final AtomicBoolean found = new AtomicBoolean(false);
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (final Worker worker : workers) {
+			tasks.add(new Callable<Void>() {
+				public Void call() {
+					int[] cube;
+					while (!found.get() && (cube = cubes.poll()) != null) {
+						if (worker.solve(clauses, getClauseVersion(), query, cube, found)) {
+							if (!found.getAndSet(true)) {
+								for (Worker other : workers) {
+									if (other != worker) {
+										other.stopIfBusy();
+									}
+								}
+							}
+						}
+					}
+					return null;
+				}
+			});
+		}
+		List<Future<Void>> results;
+		try {
+			results = executor.invokeAll(tasks);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		if (found.get()) {
+			return true;
+		}
+		// A task that failed left its cube unsolved, so no satisfiable cube does not mean unsatisfiable.
+		for (Future<Void> result : results) {
+			try {
+				result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw new RuntimeException("A cube could not be solved", e.getCause());
+			}
+		}
+		return false;
+	}
+
+	// The unassigned symbols that occur most often in clauses that are not yet satisfied.
+	private ArrayList<Integer> candidateSymbols(ArrayList<int[]> clauses, int[] values) {
+		final HashMap<Integer, Integer> occurrences = new HashMap<Integer, Integer>();
+		for (int[] clause : clauses) {
+			boolean satisfied = false;
+			for (int literal : clause) {
+				if (UnitPropagator.valueOf(values, literal) == TRUE) {
+					satisfied = true;
+					break;
+				}
+			}
+			if (!satisfied) {
+				for (int literal : clause) {
+					if (UnitPropagator.valueOf(values, literal) == UNKNOWN) {
+						Integer old = occurrences.get(Math.abs(literal));
+						occurrences.put(Math.abs(literal), (old == null) ? 1 : old + 1);
+					}
+				}
+			}
+		}
+		ArrayList<Integer> symbols = new ArrayList<Integer>(occurrences.keySet());
+		Collections.sort(symbols, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int byCount = Integer.compare(occurrences.get(b), occurrences.get(a));
+				return (byCount != 0) ? byCount : Integer.compare(a, b);
+			}
+		});
+		return new ArrayList<Integer>(symbols.subList(0, Math.min(MAX_LOOKAHEAD_SYMBOLS, symbols.size())));
+	}
+
+	private static int countAssigned(int[] values) {
+		int count = 0;
+		for (int i = 1; i < values.length; i++) {
+			if (values[i] != UNKNOWN) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static int[] extend(int[] cube, int literal) {
+		int[] extended = Arrays.copyOf(cube, cube.length + 1);
+		extended[cube.length] = literal;
+		return extended;
+	}
+
+	/*
+	 * A worker process and the knowledge base it was last sent. If the process cannot be started or dies
+	 * while solving a cube that is still needed, the cube is solved in this process instead.
+	 */
+	private static class Worker {
+		Process process;
+		DataOutputStream out;
+		DataInputStream in;
+		ArrayList<int[]> sentClauses; // the knowledge base the process holds, with its size and version
+		int sentSize;
+		long sentVersion;
+		volatile boolean busy;
+
+		public boolean solve(ArrayList<int[]> clauses, long version, ArrayList<int[]> query, int[] cube,
+				AtomicBoolean found) {
+			try {
+				synchronized (this) {
+					if (process == null) {
+						start();
+					}
+					busy = true;
+				}
+				if (sentClauses != clauses || sentSize != clauses.size() || sentVersion != version) {
+					out.writeInt(CubeWorker.LOAD);
+					out.writeInt(clauses.size());
+					for (int[] clause : clauses) {
+						CubeWorker.writeLiterals(out, clause);
+					}
+					sentClauses = clauses;
+					sentSize = clauses.size();
+					sentVersion = version;
+				}
+				out.writeInt(CubeWorker.SOLVE);
+				out.writeInt(query.size());
+				for (int[] clause : query) {
+					CubeWorker.writeLiterals(out, clause);
+				}
+				CubeWorker.writeLiterals(out, cube);
+				out.flush();
+				int answer = in.read();
+				if (answer < 0) {
+					throw new EOFException();
+				}
+				busy = false;
+				return answer == 1;
+			} catch (IOException e) {
+				stop();
+				if (found.get()) {
+					return false; // stopped because another cube was satisfiable
+				}
+				return solveLocally(clauses, query, cube);
+			}
+		}
+
+		// Ask an idle process to exit, and kill it if it does not.
+		public synchronized void exit() {
+			if (process != null) {
+				try {
+					out.writeInt(CubeWorker.EXIT);
+					out.flush();
+					process.waitFor(1, TimeUnit.SECONDS);
+				} catch (IOException e) {
+					// Already dead
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			stop();
+		}
+
+		public synchronized void stop() {
+			if (process != null) {
+				process.destroy();
+				process = null;
+				sentClauses = null;
+			}
+			busy = false;
+		}
+
+		// Stop the process if it is solving a cube that is no longer needed.
+		public synchronized void stopIfBusy() {
+			if (busy) {
+				stop();
+			}
+		}
+
+		private void start() throws IOException {
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+			ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					"CubeWorker");
+			builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+			process = builder.start();
+			out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+			in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+			sentClauses = null;
+		}
+
+		private boolean solveLocally(ArrayList<int[]> clauses, ArrayList<int[]> query, int[] cube) {
+			SATSolver solver = new DPLLSolver(true);
+			solver.clauses.addAll(clauses);
+			solver.queryClauses.addAll(query);
+			for (int literal : cube) {
+				solver.queryClauses.add(new int[] { literal });
+			}
+			return solver.makeQuery();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Worker process for CubeAndConquerSolver. It reads commands from standard input and answers on standard
+ * output, all as big-endian integers:
+ *
+ *   1 n (len literal...)*n   replace the knowledge base with n clauses
+ *   2 m (len literal...)*m len literal...
+ *                            decide if the knowledge base and m more clauses are satisfiable under a
+ *                            cube of literals; the answer is one byte, 1 if they are and 0 if not
+ *   0                        exit
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.io.*;
+
+public class CubeWorker {
+
+	public static final int EXIT = 0;
+	public static final int LOAD = 1;
+	public static final int SOLVE = 2;
+
+	public static void main(String[] args) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+		SATSolver solver = new DPLLSolver(true);
+		while (true) {
+			int command;
+			try {
+				command = in.readInt();
+			} catch (EOFException e) {
+				return;
+			}
+			if (command == LOAD) {
+				solver.clearClauses();
+				int numClauses = in.readInt();
+				for (int i = 0; i < numClauses; i++) {
+					solver.clauses.add(readLiterals(in));
+				}
+			} else if (command == SOLVE) {
+				solver.clearQueryClauses();
+				int numQueryClauses = in.readInt();
+				for (int i = 0; i < numQueryClauses; i++) {
+					solver.queryClauses.add(readLiterals(in));
+				}
+				for (int literal : readLiterals(in)) {
+					solver.queryClauses.add(new int[] { literal });
+				}
+				out.writeByte(solver.makeQuery() ? 1 : 0);
+				out.flush();
+			} else {
+				return;
+			}
+		}
+	}
+
+	static int[] readLiterals(DataInputStream in) throws IOException {
+		int[] literals = new int[in.readInt()];
+		for (int i = 0; i < literals.length; i++) {
+			literals[i] = in.readInt();
+		}
+		return literals;
+	}
+
+	static void writeLiterals(DataOutputStream out, int[] literals) throws IOException {
+		out.writeInt(literals.length);
+		for (int literal : literals) {
+			out.writeInt(literal);
+		}
+	}
+}
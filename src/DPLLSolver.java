@@ -36,12 +36,66 @@ import java.util.*;
 public class DPLLSolver extends SATSolver {
 	
 	boolean useValueOrdering; // whether the value ordering strategy is used or not
+	RestartPolicy restartPolicy; // when to restart the search, or null to never restart
+	long seed; // seed of the random choice of branching symbols, used only with restarts
+	Random random;
+	HashMap<Integer, Boolean> savedPhases = new HashMap<Integer, Boolean>(); // last value of each symbol
+	boolean restartRequested;
+	HashMap<Integer, Boolean> lastModel; // model found by the last satisfiable query, or null
+	long totalConflicts;
+	long totalRestarts;
 	
 	public DPLLSolver(boolean useValueOrdering) {
 		super();
 		this.useValueOrdering = useValueOrdering;
 	}
 
+	/**
+	 * Create a solver that restarts its search according to a restart policy. Branching symbols are chosen
+	 * at random, so that each restart explores different branches, and each symbol is first tried with the
+	 * value it had last (phase saving), so that a restart keeps the progress made before it.
+	 * 
+	 * @param useValueOrdering	whether the value ordering strategy is used for symbols without a saved value
+	 * @param restartPolicy		the restart policy
+	 * @param seed				the seed of the random choice of branching symbols
+	 */
+	public DPLLSolver(boolean useValueOrdering, RestartPolicy restartPolicy, long seed) {
+		this(useValueOrdering);
+		this.restartPolicy = restartPolicy;
+		this.seed = seed;
+		this.random = new Random(seed);
+	}
+
+	protected SATSolver newSolver() {
+		if (restartPolicy == null) {
+			return new DPLLSolver(useValueOrdering);
+		}
+		return new DPLLSolver(useValueOrdering, restartPolicy.copy(), seed);
+	}
+
+	public long getTotalConflicts() {
+		return totalConflicts;
+	}
+
+	public long getTotalRestarts() {
+		return totalRestarts;
+	}
+
+	public int[] getModel() {
+		if (lastModel == null) {
+			return null;
+		}
+		int numVars = 0;
+		for (int symbol : lastModel.keySet()) {
+			numVars = Math.max(numVars, symbol);
+		}
+		int[] values = new int[numVars + 1];
+		for (Map.Entry<Integer, Boolean> entry : lastModel.entrySet()) {
+			values[entry.getKey()] = entry.getValue() ? TRUE : FALSE;
+		}
+		return values;
+	}
+
 	/**
 	 * Decide if the query clauses can make the knowledge base satisfiable or not. This method is based on
 	 * Figure 7.17 of Russell and Norvig (third edition).
@@ -49,6 +103,7 @@ public class DPLLSolver extends SATSolver {
 	 * @return true if the set of clauses is satisfiable, false otherwise
 	 */
 	public boolean makeQuery() {
+		lastModel = null;
 		ArrayList<int[]> allClauses = new ArrayList<int[]>(clauses);
         allClauses.addAll(queryClauses);
         HashSet<Integer> symbols = new HashSet<Integer>();
@@ -57,8 +112,21 @@ public class DPLLSolver extends SATSolver {
                 symbols.add(Math.abs(literal));
             }
         }
-        HashMap<Integer, Boolean> model = new HashMap<Integer, Boolean>();
-        return dpllAlgorithm(allClauses, symbols, model);
+        if (restartPolicy == null) {
+        	HashMap<Integer, Boolean> model = new HashMap<Integer, Boolean>();
+        	return dpllAlgorithm(allClauses, symbols, model, 0);
+        }
+        restartPolicy.reset();
+        while (true) {
+        	restartRequested = false;
+        	HashMap<Integer, Boolean> model = new HashMap<Integer, Boolean>();
+        	boolean result = dpllAlgorithm(allClauses, symbols, model, 0);
+        	if (!restartRequested) {
+        		return result;
+        	}
+        	totalRestarts++;
+        	restartPolicy.onRestart();
+        }
 	}
 	
 	/**
@@ -68,17 +136,23 @@ public class DPLLSolver extends SATSolver {
 	 * @param clauses	the set of clauses
 	 * @param symbols	the set of symbols
 	 * @param model		the model that the algorithm generates
+	 * @param depth		the number of branching decisions made in the model
 	 * 
-	 * @return true if the set of clauses is satisfiable, false otherwise
+	 * @return true if the set of clauses is satisfiable, false otherwise (or if a restart was requested)
 	 */
 	private boolean dpllAlgorithm(ArrayList<int[]> clauses, HashSet<Integer> symbols,
-			HashMap<Integer, Boolean> model) {
+			HashMap<Integer, Boolean> model, int depth) {
 		
 		int checkResult = checkClauses(clauses, model);
 		if (checkResult == TRUE) {
+			lastModel = model; // the symbols left out can take either value
 			return true;
 		}
 		if (checkResult == FALSE) {
+			totalConflicts++;
+			if (restartPolicy != null && restartPolicy.onConflict(depth)) {
+				restartRequested = true;
+			}
 			return false;
 		}
 		
@@ -88,7 +162,7 @@ public class DPLLSolver extends SATSolver {
 			newSymbols.remove(pureSymbol.symbol);
 			HashMap<Integer, Boolean> newModel = new HashMap<Integer, Boolean>(model);
 			newModel.put(pureSymbol.symbol, pureSymbol.value);
-			return dpllAlgorithm(clauses, newSymbols, newModel);
+			return dpllAlgorithm(clauses, newSymbols, newModel, depth);
 		}
 		
 		SymbolValuePair unitClause = findUnitClause(clauses, model);
@@ -97,48 +171,60 @@ public class DPLLSolver extends SATSolver {
 			newSymbols.remove(unitClause.symbol);
 			HashMap<Integer, Boolean> newModel = new HashMap<Integer, Boolean>(model);
 			newModel.put(unitClause.symbol, unitClause.value);
-			return dpllAlgorithm(clauses, newSymbols, newModel);
+			if (restartPolicy != null) {
+				savedPhases.put(unitClause.symbol, unitClause.value);
+			}
+			return dpllAlgorithm(clauses, newSymbols, newModel, depth);
 		}
 		
-		int chosenSymbol = symbols.iterator().next();
+		int chosenSymbol = chooseSymbol(symbols);
 		HashSet<Integer> newSymbols = new HashSet<Integer>(symbols);
 		newSymbols.remove(chosenSymbol);
-		if (!useValueOrdering) {
-			HashMap<Integer, Boolean> modelWithChosenTrue = new HashMap<Integer, Boolean>(model);
-			modelWithChosenTrue.put(chosenSymbol, true);
-			if (dpllAlgorithm(clauses, newSymbols, modelWithChosenTrue)) {
-				return true;
-			} else {
-				newSymbols = new HashSet<Integer>(symbols);
-				HashMap<Integer, Boolean> modelWithChosenFalse = new HashMap<Integer, Boolean>(model);
-				modelWithChosenFalse.put(chosenSymbol, false);
-				return dpllAlgorithm(clauses, newSymbols, modelWithChosenFalse);
-			}
+		boolean firstValue;
+		if (restartPolicy != null && savedPhases.containsKey(chosenSymbol)) {
+			firstValue = savedPhases.get(chosenSymbol);
+		} else if (!useValueOrdering) {
+			firstValue = true;
 		} else {
-			if (trueValueIsMoreFrequent(chosenSymbol, clauses, model)) {
-				HashMap<Integer, Boolean> modelWithChosenTrue = new HashMap<Integer, Boolean>(model);
-				modelWithChosenTrue.put(chosenSymbol, true);
-				if (dpllAlgorithm(clauses, newSymbols, modelWithChosenTrue)) {
-					return true;
-				} else {
-					newSymbols = new HashSet<Integer>(symbols);
-					HashMap<Integer, Boolean> modelWithChosenFalse = new HashMap<Integer, Boolean>(model);
-					modelWithChosenFalse.put(chosenSymbol, false);
-					return dpllAlgorithm(clauses, newSymbols, modelWithChosenFalse);
-				}
-			} else {
-				HashMap<Integer, Boolean> modelWithChosenFalse = new HashMap<Integer, Boolean>(model);
-				modelWithChosenFalse.put(chosenSymbol, false);
-				if (dpllAlgorithm(clauses, newSymbols, modelWithChosenFalse)) {
-					return true;
-				} else {
-					newSymbols = new HashSet<Integer>(symbols);
-					HashMap<Integer, Boolean> modelWithChosenTrue = new HashMap<Integer, Boolean>(model);
-					modelWithChosenTrue.put(chosenSymbol, true);
-					return dpllAlgorithm(clauses, newSymbols, modelWithChosenTrue);
-				}
+			firstValue = trueValueIsMoreFrequent(chosenSymbol, clauses, model);
+		}
+		
+		HashMap<Integer, Boolean> modelWithFirstValue = new HashMap<Integer, Boolean>(model);
+		modelWithFirstValue.put(chosenSymbol, firstValue);
+		if (restartPolicy != null) {
+			savedPhases.put(chosenSymbol, firstValue);
+		}
+		if (dpllAlgorithm(clauses, newSymbols, modelWithFirstValue, depth + 1)) {
+			return true;
+		} else if (restartRequested) {
+			return false;
+		} else {
+			HashMap<Integer, Boolean> modelWithSecondValue = new HashMap<Integer, Boolean>(model);
+			modelWithSecondValue.put(chosenSymbol, !firstValue);
+			if (restartPolicy != null) {
+				savedPhases.put(chosenSymbol, !firstValue);
 			}
+			return dpllAlgorithm(clauses, newSymbols, modelWithSecondValue, depth + 1);
+		}
+	}
+	
+	/**
+	 * Choose the symbol to branch on: the first one in the set, or a random one when the search restarts.
+	 * 
+	 * @param symbols	the set of symbols not assigned yet
+	 * 
+	 * @return the chosen symbol
+	 */
+	private int chooseSymbol(HashSet<Integer> symbols) {
+		if (random == null) {
+			return symbols.iterator().next();
+		}
+		int index = random.nextInt(symbols.size());
+		Iterator<Integer> iterator = symbols.iterator();
+		for (int i = 0; i < index; i++) {
+			iterator.next();
 		}
+		return iterator.next();
 	}
 	
 	/**
@@ -0,0 +1,72 @@
+/**
+ * A move of a Clue game that adds knowledge to a ClueReasoner: a hand, a suggestion or an accusation.
+ * Players and cards are given by their numbers in the reasoner, so that a batch of events can be recorded
+ * without looking up any name.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.util.*;
+
+public class GameEvent {
+
+	public static final int HAND = 0;
+	public static final int SUGGEST = 1;
+	public static final int ACCUSE = 2;
+
+	public final int type;
+	public final int player; // the player holding the hand, suggesting or accusing
+	public final int[] cards; // the cards of the hand, suggestion or accusation
+	public final int refuter; // the player refuting a suggestion, or -1 if nobody did
+	public final int cardShown; // the card shown to refute a suggestion, or -1 if it was not seen
+	public final boolean isCorrect; // whether an accusation was correct
+
+	private GameEvent(int type, int player, int[] cards, int refuter, int cardShown, boolean isCorrect) {
+		this.type = type;
+		this.player = player;
+		this.cards = cards;
+		this.refuter = refuter;
+		this.cardShown = cardShown;
+		this.isCorrect = isCorrect;
+	}
+
+	public static GameEvent hand(int player, int[] handCards) {
+		return new GameEvent(HAND, player, handCards.clone(), -1, -1, false);
+	}
+
+	public static GameEvent suggest(int suggester, int card1, int card2, int card3, int refuter, int cardShown) {
+		return new GameEvent(SUGGEST, suggester, new int[] { card1, card2, card3 }, refuter, cardShown, false);
+	}
+
+	public static GameEvent accuse(int accuser, int card1, int card2, int card3, boolean isCorrect) {
+		return new GameEvent(ACCUSE, accuser, new int[] { card1, card2, card3 }, -1, -1, isCorrect);
+	}
+
+	public String toString() {
+		if (type == HAND) {
+			return "hand " + player + " " + Arrays.toString(cards);
+		} else if (type == SUGGEST) {
+			return "suggest " + player + " " + Arrays.toString(cards) + " " + refuter + " " + cardShown;
+		} else {
+			return "accuse " + player + " " + Arrays.toString(cards) + " " + isCorrect;
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/**
+ * Streaming reader of game logs, one move per line, that turns the moves into GameEvents for a
+ * ClueReasoner. Names are numbered once when the reader is created, so the reasoner's player order must be
+ * set before then. The format is:
+ *
+ *   h player card card ...                      the cards a player holds
+ *   s suggester card card card [refuter [shown]]  a suggestion, with - for nobody or an unseen card
+ *   a accuser card card card y|n                an accusation and whether it was correct
+ *   e                                           the end of a game
+ *
+ * Blank lines and lines starting with # are ignored. A log holding several games separates them with e
+ * records, and its games must all have the same player order, since the reader numbers the names once.
+ * next() returns null at the end of each game, and nextGame() moves on to the following one, so each game
+ * can be recorded on a reasoner of its own.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class GameLogReader {
+
+	public static final int DEFAULT_BATCH_SIZE = 4096;
+
+	private BufferedReader in;
+	private NameTable playerNums;
+	private NameTable cardNums;
+	private int lineNumber;
+	private String line; // the line being parsed, and where its tokens start and end
+	private int[] tokenStarts = new int[8];
+	private int[] tokenEnds = new int[8];
+	private int numTokens;
+	private boolean pending; // whether the line is the first of the next game, read ahead by nextGame()
+	private boolean endOfGame; // whether next() stopped at an e record
+
+	public GameLogReader(Reader in, ClueReasoner reasoner) {
+		this.in = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+		playerNums = new NameTable(reasoner.getPlayers());
+		cardNums = new NameTable(reasoner.getCards());
+	}
+
+	/**
+	 * Record a game log on a reasoner, one batch of events at a time, up to the end of its first game.
+	 *
+	 * @param in		the game log
+	 * @param reasoner	the reasoner
+	 * @param batchSize	the maximum number of events recorded at once
+	 *
+	 * @return the number of events recorded
+	 *
+	 * @throws IOException if the log cannot be read or contains an illegal line
+	 */
+	public static long ingest(Reader in, ClueReasoner reasoner, int batchSize) throws IOException {
+		return ingest(new GameLogReader(in, reasoner), reasoner, batchSize);
+	}
+
+	/**
+	 * Record the rest of the current game of a log on a reasoner, one batch of events at a time.
+	 *
+	 * @param reader	the reader of the log
+	 * @param reasoner	the reasoner, with the player order the reader was created with
+	 * @param batchSize	the maximum number of events recorded at once
+	 *
+	 * @return the number of events recorded
+	 *
+	 * @throws IOException if the log cannot be read or contains an illegal line
+	 */
+	public static long ingest(GameLogReader reader, ClueReasoner reasoner, int batchSize) throws IOException {
+		long numEvents = 0;
+		ArrayList<GameEvent> batch = reader.readBatch(batchSize);
+		while (!batch.isEmpty()) {
+			reasoner.applyEvents(batch);
+			numEvents += batch.size();
+			batch = reader.readBatch(batchSize);
+		}
+		return numEvents;
+	}
+
+	/**
+	 * Read the next event of the current game.
+	 *
+	 * @return the event, or null at the end of the game or of the log
+	 *
+	 * @throws IOException if the log cannot be read or the line is illegal
+	 */
+	public GameEvent next() throws IOException {
+		if (endOfGame) {
+			return null;
+		}
+		if (!pending && !nextLine()) {
+			return null;
+		}
+		pending = false;
+		if (tokenIs(0, "e")) {
+			requireTokens(1, 1);
+			endOfGame = true;
+			return null;
+		}
+		return parse();
+	}
+
+	/**
+	 * Move on to the next game of the log, skipping what is left of the current one.
+	 *
+	 * @return true if there is another game, false at the end of the log
+	 *
+	 * @throws IOException if the log cannot be read or a line is illegal
+	 */
+	public boolean nextGame() throws IOException {
+		while (next() != null) {
+			// Skip the rest of the current game.
+		}
+		endOfGame = false;
+		pending = nextLine();
+		return pending;
+	}
+
+	// Read and tokenize the next line that is not blank or a comment, returning false at the end of the log.
+	private boolean nextLine() throws IOException {
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			tokenize();
+			if (numTokens > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Read up to a given number of events.
+	 *
+	 * @param maxEvents	the maximum number of events
+	 *
+	 * @return the events, which are fewer than maxEvents only at the end of the game or of the log
+	 *
+	 * @throws IOException if the log cannot be read or a line is illegal
+	 */
+	public ArrayList<GameEvent> readBatch(int maxEvents) throws IOException {
+		ArrayList<GameEvent> batch = new ArrayList<GameEvent>(Math.min(maxEvents, DEFAULT_BATCH_SIZE));
+		GameEvent event;
+		while (batch.size() < maxEvents && (event = next()) != null) {
+			batch.add(event);
+		}
+		return batch;
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private GameEvent parse() throws IOException {
+		if (tokenIs(0, "h")) {
+			requireTokens(2, Integer.MAX_VALUE);
+			int[] handCards = new int[numTokens - 2];
+			for (int i = 2; i < numTokens; i++) {
+				handCards[i - 2] = card(i);
+			}
+			return GameEvent.hand(player(1), handCards);
+		} else if (tokenIs(0, "s")) {
+			requireTokens(5, 7);
+			int refuter = (numTokens > 5 && !tokenIs(5, "-")) ? player(5) : -1;
+			int cardShown = (numTokens > 6 && !tokenIs(6, "-")) ? card(6) : -1;
+			if (refuter == -1 && cardShown != -1) {
+				throw error("card shown without a refuter");
+			}
+			return GameEvent.suggest(player(1), card(2), card(3), card(4), refuter, cardShown);
+		} else if (tokenIs(0, "a")) {
+			requireTokens(6, 6);
+			if (!tokenIs(5, "y") && !tokenIs(5, "n")) {
+				throw error("expected y or n, found " + token(5));
+			}
+			return GameEvent.accuse(player(1), card(2), card(3), card(4), tokenIs(5, "y"));
+		}
+		throw error("illegal event type " + token(0));
+	}
+
+	private void requireTokens(int min, int max) throws IOException {
+		if (numTokens < min || numTokens > max) {
+			throw error("wrong number of fields for event type " + token(0));
+		}
+	}
+
+	private int player(int token) throws IOException {
+		int num = playerNums.get(line, tokenStarts[token], tokenEnds[token]);
+		if (num < 0) {
+			throw error("illegal player " + token(token));
+		}
+		return num;
+	}
+
+	private int card(int token) throws IOException {
+		int num = cardNums.get(line, tokenStarts[token], tokenEnds[token]);
+		if (num < 0) {
+			throw error("illegal card " + token(token));
+		}
+		return num;
+	}
+
+	private boolean tokenIs(int token, String text) {
+		int length = tokenEnds[token] - tokenStarts[token];
+		return length == text.length() && line.regionMatches(tokenStarts[token], text, 0, length);
+	}
+
+	private String token(int token) {
+		return line.substring(tokenStarts[token], tokenEnds[token]);
+	}
+
+	private IOException error(String message) {
+		return new IOException("Line " + lineNumber + ": " + message);
+	}
+
+	// Split the line on spaces and tabs, finding no tokens in blank lines and comments.
+	private void tokenize() {
+		numTokens = 0;
+		int i = 0;
+		int length = line.length();
+		while (i < length) {
+			while (i < length && (line.charAt(i) == ' ' || line.charAt(i) == '\t')) {
+				i++;
+			}
+			if (i == length || (numTokens == 0 && line.charAt(i) == '#')) {
+				break;
+			}
+			if (numTokens == tokenStarts.length) {
+				tokenStarts = Arrays.copyOf(tokenStarts, 2 * numTokens);
+				tokenEnds = Arrays.copyOf(tokenEnds, 2 * numTokens);
+			}
+			tokenStarts[numTokens] = i;
+			while (i < length && line.charAt(i) != ' ' && line.charAt(i) != '\t') {
+				i++;
+			}
+			tokenEnds[numTokens++] = i;
+		}
+	}
+
+	/*
+	 * Open-addressing table from names to numbers, looked up by a range of a line so that parsing does not
+	 * create a string for each token.
+	 */
+	private static class NameTable {
+		String[] names;
+		int[] nums;
+		int mask;
+
+		public NameTable(String[] keys) {
+			int size = Integer.highestOneBit(Math.max(4, 4 * keys.length) - 1) << 1;
+			names = new String[size];
+			nums = new int[size];
+			mask = size - 1;
+			for (int num = 0; num < keys.length; num++) {
+				int i = hash(keys[num], 0, keys[num].length()) & mask;
+				while (names[i] != null) {
+					i = (i + 1) & mask;
+				}
+				names[i] = keys[num];
+				nums[i] = num;
+			}
+		}
+
+		// The number of the name in line[start, end), or -1 if it is not in the table.
+		public int get(String line, int start, int end) {
+			for (int i = hash(line, start, end) & mask; names[i] != null; i = (i + 1) & mask) {
+				if (names[i].length() == end - start && line.regionMatches(start, names[i], 0, end - start)) {
+					return nums[i];
+				}
+			}
+			return -1;
+		}
+
+		private static int hash(String text, int start, int end) {
+			int hash = 0;
+			for (int i = start; i < end; i++) {
+				hash = 31 * hash + text.charAt(i);
+			}
+			return hash ^ (hash >>> 16);
+		}
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ * Stochastic local search solver (ProbSAT) backed by a complete solver. Local search looks for a model by
+ * flipping variables of a full assignment, and is usually much faster than a systematic search on
+ * satisfiable queries, but it can never prove that a query is unsatisfiable. So each query is first
+ * simplified by unit propagation, which refutes many unsatisfiable queries outright; then ProbSAT gets a
+ * budget of flips; and if it has not found a model by then, the query is handed to the complete solver.
+ *
+ * ProbSAT repeatedly picks a random false clause and flips one of its variables, chosen with probability
+ * (EPS + break)^-CB, where the break count of a variable is the number of clauses that would become false
+ * by flipping it. The break counts and the list of false clauses are updated incrementally on each flip,
+ * using the number of true literals of each clause and the sum of their variables, which is the only true
+ * variable when there is one.
+ *
+ * The models found are reported by getModel(), so testLiteral() and testLiterals() can settle other
+ * literals from them without further searches.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.util.*;
+
+public class LocalSearchSolver extends SATSolver {
+
+	public static final int DEFAULT_MAX_FLIPS = 5000;
+
+	private static final double EPS = 0.9;
+	private static final double CB = 2.3; // polynomial break weight, suited to clauses of mixed length
+	private static final int MAX_BREAK = 64; // break counts with a precomputed weight
+
+	private SATSolver completeSolver;
+	private int maxFlips;
+	private long seed;
+	private Random random;
+	private double[] breakWeights = new double[MAX_BREAK];
+	private int[] lastModel;
+
+	private ArrayList<int[]> loadedClauses; // the clauses last given to the complete solver
+	private int loadedSize;
+	private long loadedVersion;
+
+	private long localSearchModels;
+	private long completeSolverCalls;
+	private long totalFlips;
+
+	public LocalSearchSolver() {
+		this(new DPLLSolver(true), DEFAULT_MAX_FLIPS, 0);
+	}
+
+	/**
+	 * @param completeSolver	the solver that decides the queries local search does not satisfy
+	 * @param maxFlips			the number of flips local search may make on a query
+	 * @param seed				the seed of the random choices
+	 */
+	public LocalSearchSolver(SATSolver completeSolver, int maxFlips, long seed) {
+		super();
+		this.completeSolver = completeSolver;
+		this.maxFlips = maxFlips;
+		this.seed = seed;
+		this.random = new Random(seed);
+		for (int b = 0; b < MAX_BREAK; b++) {
+			breakWeights[b] = Math.pow(EPS + b, -CB);
+		}
+	}
+
+	protected SATSolver newSolver() {
+		return new LocalSearchSolver(completeSolver.newSolver(), maxFlips, seed);
+	}
+
+	/**
+	 * Decide if the query clauses can make the knowledge base satisfiable or not.
+	 *
+	 * @return true if the set of clauses is satisfiable, false otherwise
+	 */
+	public boolean makeQuery() {
+		lastModel = null;
+		ArrayList<int[]> allClauses = new ArrayList<int[]>(clauses);
+		allClauses.addAll(queryClauses);
+		UnitPropagator propagator = new UnitPropagator(allClauses);
+		if (!propagator.isConsistent()) {
+			return false;
+		}
+		int[] values = propagator.propagate(new int[0]);
+
+		// Drop satisfied clauses and tautologies, and literals that are false or repeated.
+		ArrayList<int[]> remaining = new ArrayList<int[]>();
+		for (int[] clause : allClauses) {
+			int length = 0;
+			boolean satisfied = false;
+			int[] reduced = new int[clause.length];
+			for (int literal : clause) {
+				int value = UnitPropagator.valueOf(values, literal);
+				if (value == TRUE) {
+					satisfied = true;
+				} else if (value == UNKNOWN) {
+					boolean seen = false;
+					for (int i = 0; i < length; i++) {
+						satisfied |= reduced[i] == -literal;
+						seen |= reduced[i] == literal;
+					}
+					if (!seen) {
+						reduced[length++] = literal;
+					}
+				}
+			}
+			if (!satisfied) {
+				remaining.add(Arrays.copyOf(reduced, length));
+			}
+		}
+
+		if (probSat(remaining, values)) {
+			localSearchModels++;
+			lastModel = values;
+			return true;
+		}
+		completeSolverCalls++;
+		if (loadedClauses != clauses || loadedSize != clauses.size() || loadedVersion != getClauseVersion()) {
+			completeSolver.clearClauses();
+			for (int[] clause : clauses) {
+				completeSolver.addClause(clause);
+			}
+			loadedClauses = clauses;
+			loadedSize = clauses.size();
+			loadedVersion = getClauseVersion();
+		}
+		completeSolver.clearQueryClauses();
+		for (int[] clause : queryClauses) {
+			completeSolver.addQueryClause(clause);
+		}
+		boolean result = completeSolver.makeQuery();
+		if (result) {
+			lastModel = completeSolver.getModel();
+		}
+		return result;
+	}
+
+	public int[] getModel() {
+		return lastModel;
+	}
+
+	/**
+	 * Get the number of queries satisfied by local search.
+	 */
+	public long getLocalSearchModels() {
+		return localSearchModels;
+	}
+
+	/**
+	 * Get the number of queries handed to the complete solver.
+	 */
+	public long getCompleteSolverCalls() {
+		return completeSolverCalls;
+	}
+
+	public long getTotalFlips() {
+		return totalFlips;
+	}
+
+	/**
+	 * Look for a model of clauses whose literals are all unassigned.
+	 *
+	 * @param clauses	the clauses, none of them empty
+	 * @param values	the values of the variables fixed so far, completed with a model if one is found
+	 *
+	 * @return true if a model was found within the flip budget, false otherwise
+	 */
+	private boolean probSat(ArrayList<int[]> clauses, int[] values) {
+		int numClauses = clauses.size();
+		if (numClauses == 0) {
+			return true;
+		}
+		int numVars = values.length - 1;
+		int[][] occurrences = indexOccurrences(clauses, numVars);
+
+		// Start from a random assignment of the variables that occur.
+		boolean[] assignment = new boolean[numVars + 1];
+		for (int var = 1; var <= numVars; var++) {
+			assignment[var] = random.nextBoolean();
+		}
+		int[] numTrue = new int[numClauses];
+		int[] trueVarSum = new int[numClauses]; // the only true variable when numTrue is 1
+		int[] breakCount = new int[numVars + 1];
+		int[] unsat = new int[numClauses];
+		int[] unsatPosition = new int[numClauses];
+		int numUnsat = 0;
+		for (int c = 0; c < numClauses; c++) {
+			for (int literal : clauses.get(c)) {
+				if (isTrue(assignment, literal)) {
+					numTrue[c]++;
+					trueVarSum[c] += Math.abs(literal);
+				}
+			}
+			if (numTrue[c] == 0) {
+				unsatPosition[c] = numUnsat;
+				unsat[numUnsat++] = c;
+			} else if (numTrue[c] == 1) {
+				breakCount[trueVarSum[c]]++;
+			}
+		}
+
+		double[] weights = new double[0];
+		for (int flip = 0; flip < maxFlips && numUnsat > 0; flip++) {
+			int[] clause = clauses.get(unsat[random.nextInt(numUnsat)]);
+			if (weights.length < clause.length) {
+				weights = new double[clause.length];
+			}
+			double sum = 0;
+			for (int i = 0; i < clause.length; i++) {
+				int b = breakCount[Math.abs(clause[i])];
+				weights[i] = (b < MAX_BREAK) ? breakWeights[b] : Math.pow(EPS + b, -CB);
+				sum += weights[i];
+			}
+			double r = random.nextDouble() * sum;
+			int chosen = clause.length - 1;
+			for (int i = 0; i < clause.length - 1; i++) {
+				r -= weights[i];
+				if (r < 0) {
+					chosen = i;
+					break;
+				}
+			}
+
+			// Flip the variable: the literal that was true becomes false, and its negation becomes true.
+			int var = Math.abs(clause[chosen]);
+			int falsified = assignment[var] ? var : -var;
+			assignment[var] = !assignment[var];
+			totalFlips++;
+			for (int c : occurrences[index(falsified)]) {
+				numTrue[c]--;
+				trueVarSum[c] -= var;
+				if (numTrue[c] == 0) {
+					breakCount[var]--;
+					unsatPosition[c] = numUnsat;
+					unsat[numUnsat++] = c;
+				} else if (numTrue[c] == 1) {
+					breakCount[trueVarSum[c]]++;
+				}
+			}
+			for (int c : occurrences[index(-falsified)]) {
+				numTrue[c]++;
+				trueVarSum[c] += var;
+				if (numTrue[c] == 1) {
+					breakCount[var]++;
+					int last = unsat[--numUnsat];
+					unsat[unsatPosition[c]] = last;
+					unsatPosition[last] = unsatPosition[c];
+				} else if (numTrue[c] == 2) {
+					breakCount[trueVarSum[c] - var]--;
+				}
+			}
+		}
+		if (numUnsat > 0) {
+			return false;
+		}
+
+		for (int[] clause : clauses) {
+			for (int literal : clause) {
+				int var = Math.abs(literal);
+				values[var] = assignment[var] ? TRUE : FALSE;
+			}
+		}
+		return true;
+	}
+
+	// The indices of the clauses containing each literal, see index().
+	private static int[][] indexOccurrences(ArrayList<int[]> clauses, int numVars) {
+		int[] counts = new int[2 * numVars + 2];
+		for (int[] clause : clauses) {
+			for (int literal : clause) {
+				counts[index(literal)]++;
+			}
+		}
+		int[][] occurrences = new int[counts.length][];
+		for (int i = 0; i < counts.length; i++) {
+			occurrences[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int c = 0; c < clauses.size(); c++) {
+			for (int literal : clauses.get(c)) {
+				occurrences[index(literal)][counts[index(literal)]++] = c;
+			}
+		}
+		return occurrences;
+	}
+
+	private static boolean isTrue(boolean[] assignment, int literal) {
+		return (literal > 0) == assignment[Math.abs(literal)];
+	}
+
+	private static int index(int literal) {
+		return (literal > 0) ? 2 * literal : -2 * literal + 1;
+	}
+}
@@ -0,0 +1,477 @@
+/**
+ * Exact model counter (#SAT) for the knowledge base of a SATSolver. The counter is a DPLL-style search
+ * that splits the simplified formula into independent components after every unit propagation step and
+ * caches the count of every component it has solved. Besides the total number of models, each count
+ * carries the number of models in which every variable is true, so all marginal counts (and thus the
+ * probability of every notepad cell) come out of one traversal.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.math.BigInteger;
+import java.util.*;
+
+public class ModelCounter extends SATSolver {
+
+	public static final int DEFAULT_CACHE_SIZE = 100000;
+
+	private int cacheSize; // maximum number of components kept in the cache
+	private LinkedHashMap<ComponentKey, Count> cache;
+	private long cacheHits;
+	private long cacheMisses;
+
+	private int numVars; // largest variable of the last count
+	private BigInteger modelCount = BigInteger.ZERO;
+	private BigInteger[] marginals = new BigInteger[1];
+
+	public ModelCounter() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	public ModelCounter(int cacheSize) {
+		super();
+		this.cacheSize = cacheSize;
+		this.cache = new LinkedHashMap<ComponentKey, Count>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<ComponentKey, Count> eldest) {
+				return size() > ModelCounter.this.cacheSize;
+			}
+		};
+	}
+
+	protected SATSolver newSolver() {
+		return new ModelCounter(cacheSize);
+	}
+
+	/**
+	 * Create a counter that starts with this counter's knowledge base and shares its component cache. A
+	 * cached count only depends on the clauses of the component, so it stays valid for any knowledge base,
+	 * and counters forked to try hypothetical clauses reuse each other's work.
+	 */
+	public SATSolver fork() {
+		ModelCounter copy = (ModelCounter) super.fork();
+		copy.cache = cache;
+		return copy;
+	}
+
+	/**
+	 * Decide if the query clauses can make the knowledge base satisfiable or not by counting its models.
+	 *
+	 * @return true if the set of clauses has at least one model, false otherwise
+	 */
+	public boolean makeQuery() {
+		return countModels().signum() > 0;
+	}
+
+	/**
+	 * Count the models of the knowledge base together with the query clauses. The marginal counts of all
+	 * variables are computed at the same time and can be read with getMarginal() afterwards. Variables from
+	 * 1 to the largest variable in the clauses are counted, including those that appear in no clause.
+	 *
+	 * @return the number of models
+	 */
+	public BigInteger countModels() {
+		ArrayList<int[]> allClauses = new ArrayList<int[]>(clauses);
+		allClauses.addAll(queryClauses);
+		numVars = 0;
+		for (int[] clause : allClauses) {
+			for (int literal : clause) {
+				numVars = Math.max(Math.abs(literal), numVars);
+			}
+		}
+		int[] vars = new int[numVars];
+		for (int i = 0; i < numVars; i++) {
+			vars[i] = i + 1;
+		}
+
+		Count result = count(allClauses, vars);
+		modelCount = result.total;
+		marginals = new BigInteger[numVars + 1];
+		marginals[0] = BigInteger.ZERO;
+		for (int i = 0; i < numVars; i++) {
+			marginals[i + 1] = result.trueCounts[i];
+		}
+		return modelCount;
+	}
+
+	/**
+	 * Get the number of models of the last count.
+	 *
+	 * @return the number of models
+	 */
+	public BigInteger getModelCount() {
+		return modelCount;
+	}
+
+	/**
+	 * Get the number of models of the last count in which a literal is true.
+	 *
+	 * @param literal	the literal
+	 *
+	 * @return the number of models in which the literal is true
+	 */
+	public BigInteger getMarginal(int literal) {
+		int var = Math.abs(literal);
+		BigInteger trueCount = (var <= numVars) ? marginals[var] : modelCount.shiftRight(1);
+		return (literal > 0) ? trueCount : modelCount.subtract(trueCount);
+	}
+
+	/**
+	 * Get the probability that a literal is true if all models of the last count are equally likely.
+	 *
+	 * @param literal	the literal
+	 *
+	 * @return the probability, or NaN if the knowledge base has no model
+	 */
+	public double getProbability(int literal) {
+		if (modelCount.signum() == 0) {
+			return Double.NaN;
+		}
+		return ratio(getMarginal(literal), modelCount);
+	}
+
+	public long getCacheHits() {
+		return cacheHits;
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses;
+	}
+
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Count the models of a set of clauses over a set of variables. Unit clauses are propagated first, then
+	 * the remaining clauses are split into components that share no variable, and each component is counted
+	 * separately.
+	 *
+	 * @param clauses	the set of clauses
+	 * @param vars		the sorted variables to count over, which include all variables of the clauses
+	 *
+	 * @return the number of models and the marginal count of every variable
+	 */
+	private Count count(ArrayList<int[]> clauses, int[] vars) {
+		HashMap<Integer, Boolean> assigned = new HashMap<Integer, Boolean>();
+		ArrayList<int[]> remaining = propagate(clauses, assigned);
+		if (remaining == null) {
+			return Count.zero(vars.length);
+		}
+
+		// Group the remaining clauses into components with a union-find over their variables.
+		HashMap<Integer, Integer> parent = new HashMap<Integer, Integer>();
+		for (int[] clause : remaining) {
+			int first = find(parent, Math.abs(clause[0]));
+			for (int i = 1; i < clause.length; i++) {
+				int other = find(parent, Math.abs(clause[i]));
+				if (other != first) {
+					parent.put(other, first);
+				}
+			}
+		}
+		LinkedHashMap<Integer, ArrayList<int[]>> componentClauses = new LinkedHashMap<Integer, ArrayList<int[]>>();
+		for (int[] clause : remaining) {
+			int root = find(parent, Math.abs(clause[0]));
+			ArrayList<int[]> list = componentClauses.get(root);
+			if (list == null) {
+				list = new ArrayList<int[]>();
+				componentClauses.put(root, list);
+			}
+			list.add(clause);
+		}
+
+		// Count every component and remember where each variable's marginal count comes from.
+		HashMap<Integer, Integer> componentOf = new HashMap<Integer, Integer>();
+		HashMap<Integer, Integer> indexInComponent = new HashMap<Integer, Integer>();
+		ArrayList<Count> counts = new ArrayList<Count>();
+		for (ArrayList<int[]> component : componentClauses.values()) {
+			int[] componentVars = variablesOf(component);
+			for (int i = 0; i < componentVars.length; i++) {
+				componentOf.put(componentVars[i], counts.size());
+				indexInComponent.put(componentVars[i], i);
+			}
+			Count componentCount = countComponent(component, componentVars);
+			if (componentCount.total.signum() == 0) {
+				return Count.zero(vars.length);
+			}
+			counts.add(componentCount);
+		}
+
+		int numFree = 0;
+		for (int var : vars) {
+			if (!assigned.containsKey(var) && !componentOf.containsKey(var)) {
+				numFree++;
+			}
+		}
+		BigInteger total = BigInteger.ONE.shiftLeft(numFree);
+		for (Count componentCount : counts) {
+			total = total.multiply(componentCount.total);
+		}
+
+		Count result = new Count(total, vars.length);
+		for (int i = 0; i < vars.length; i++) {
+			Boolean value = assigned.get(vars[i]);
+			Integer component = componentOf.get(vars[i]);
+			if (value != null) {
+				result.trueCounts[i] = value ? total : BigInteger.ZERO;
+			} else if (component != null) {
+				Count componentCount = counts.get(component);
+				BigInteger others = total.divide(componentCount.total);
+				result.trueCounts[i] = componentCount.trueCounts[indexInComponent.get(vars[i])].multiply(others);
+			} else {
+				result.trueCounts[i] = total.shiftRight(1);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Count the models of one connected component, looking it up in the cache first. On a cache miss, the
+	 * most frequent variable is branched on and both branches are counted.
+	 *
+	 * @param clauses	the clauses of the component, none of which is a unit clause
+	 * @param vars		the sorted variables of the component
+	 *
+	 * @return the number of models and the marginal count of every variable
+	 */
+	private Count countComponent(ArrayList<int[]> clauses, int[] vars) {
+		ComponentKey key = new ComponentKey(clauses);
+		Count cached;
+		synchronized (cache) {
+			cached = cache.get(key);
+		}
+		if (cached != null) {
+			cacheHits++;
+			return cached;
+		}
+		cacheMisses++;
+
+		int chosenSymbol = mostFrequentSymbol(clauses);
+		ArrayList<int[]> clausesWithChosenTrue = new ArrayList<int[]>(clauses);
+		clausesWithChosenTrue.add(new int[] { chosenSymbol });
+		ArrayList<int[]> clausesWithChosenFalse = new ArrayList<int[]>(clauses);
+		clausesWithChosenFalse.add(new int[] { -chosenSymbol });
+		Count result = count(clausesWithChosenTrue, vars).add(count(clausesWithChosenFalse, vars));
+
+		synchronized (cache) {
+			cache.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Assign the literals of unit clauses until no unit clause is left, removing satisfied clauses and false
+	 * literals along the way. All unit clauses found in one pass are assigned before the clauses are
+	 * simplified again.
+	 *
+	 * @param clauses	the set of clauses
+	 * @param assigned	the map that receives the assigned symbols and their values
+	 *
+	 * @return the simplified clauses, or null if a clause became false
+	 */
+	private ArrayList<int[]> propagate(ArrayList<int[]> clauses, HashMap<Integer, Boolean> assigned) {
+		ArrayList<int[]> current = clauses;
+		while (true) {
+			boolean foundUnit = false;
+			for (int[] clause : current) {
+				if (clause.length == 0) {
+					return null;
+				}
+				if (clause.length == 1) {
+					Boolean old = assigned.put(Math.abs(clause[0]), clause[0] > 0);
+					if (old != null && old != (clause[0] > 0)) {
+						return null;
+					}
+					foundUnit = true;
+				}
+			}
+			if (!foundUnit) {
+				return current;
+			}
+
+			ArrayList<int[]> simplified = new ArrayList<int[]>(current.size());
+			for (int[] clause : current) {
+				int[] reduced = simplify(clause, assigned);
+				if (reduced == null) {
+					continue;
+				}
+				if (reduced.length == 0) {
+					return null;
+				}
+				simplified.add(reduced);
+			}
+			current = simplified;
+		}
+	}
+
+	/**
+	 * Simplify a clause under a partial assignment.
+	 *
+	 * @param clause	the clause
+	 * @param assigned	the assigned symbols and their values
+	 *
+	 * @return null if the clause is satisfied, otherwise the clause without its false literals
+	 */
+	private int[] simplify(int[] clause, HashMap<Integer, Boolean> assigned) {
+		int falseCount = 0;
+		for (int literal : clause) {
+			Boolean value = assigned.get(Math.abs(literal));
+			if (value != null) {
+				if (value == (literal > 0)) {
+					return null;
+				}
+				falseCount++;
+			}
+		}
+		if (falseCount == 0) {
+			return clause;
+		}
+		int[] reduced = new int[clause.length - falseCount];
+		int i = 0;
+		for (int literal : clause) {
+			if (!assigned.containsKey(Math.abs(literal))) {
+				reduced[i++] = literal;
+			}
+		}
+		return reduced;
+	}
+
+	private int find(HashMap<Integer, Integer> parent, int var) {
+		Integer p = parent.get(var);
+		if (p == null) {
+			parent.put(var, var);
+			return var;
+		}
+		if (p == var) {
+			return var;
+		}
+		int root = find(parent, p);
+		parent.put(var, root);
+		return root;
+	}
+
+	private int[] variablesOf(ArrayList<int[]> clauses) {
+		TreeSet<Integer> symbols = new TreeSet<Integer>();
+		for (int[] clause : clauses) {
+			for (int literal : clause) {
+				symbols.add(Math.abs(literal));
+			}
+		}
+		int[] vars = new int[symbols.size()];
+		int i = 0;
+		for (int symbol : symbols) {
+			vars[i++] = symbol;
+		}
+		return vars;
+	}
+
+	private int mostFrequentSymbol(ArrayList<int[]> clauses) {
+		HashMap<Integer, Integer> occurrences = new HashMap<Integer, Integer>();
+		int best = 0;
+		int bestCount = 0;
+		for (int[] clause : clauses) {
+			for (int literal : clause) {
+				int symbol = Math.abs(literal);
+				Integer old = occurrences.get(symbol);
+				int count = (old == null) ? 1 : old + 1;
+				occurrences.put(symbol, count);
+				if (count > bestCount || (count == bestCount && symbol < best)) {
+					best = symbol;
+					bestCount = count;
+				}
+			}
+		}
+		return best;
+	}
+
+	// Divide two big integers as doubles without overflowing when they are larger than Double.MAX_VALUE.
+	private static double ratio(BigInteger numerator, BigInteger denominator) {
+		int shift = Math.max(0, denominator.bitLength() - 1000);
+		return numerator.shiftRight(shift).doubleValue() / denominator.shiftRight(shift).doubleValue();
+	}
+
+	/*
+	 * The number of models of a formula and, for each of its variables, the number of models in which the
+	 * variable is true.
+	 */
+	private static class Count {
+		BigInteger total;
+		BigInteger[] trueCounts;
+
+		public Count(BigInteger total, int numVars) {
+			this.total = total;
+			this.trueCounts = new BigInteger[numVars];
+		}
+
+		public static Count zero(int numVars) {
+			Count count = new Count(BigInteger.ZERO, numVars);
+			Arrays.fill(count.trueCounts, BigInteger.ZERO);
+			return count;
+		}
+
+		public Count add(Count other) {
+			Count sum = new Count(total.add(other.total), trueCounts.length);
+			for (int i = 0; i < trueCounts.length; i++) {
+				sum.trueCounts[i] = trueCounts[i].add(other.trueCounts[i]);
+			}
+			return sum;
+		}
+	}
+
+	/*
+	 * Cache key of a component: its clauses with sorted literals, in sorted order, so that the same residual
+	 * formula reached through different branches hashes to the same entry.
+	 */
+	private static class ComponentKey {
+		int[][] clauses;
+		int hash;
+
+		public ComponentKey(ArrayList<int[]> component) {
+			clauses = new int[component.size()][];
+			for (int i = 0; i < clauses.length; i++) {
+				clauses[i] = component.get(i).clone();
+				Arrays.sort(clauses[i]);
+			}
+			Arrays.sort(clauses, new Comparator<int[]>() {
+				public int compare(int[] a, int[] b) {
+					for (int i = 0; i < a.length && i < b.length; i++) {
+						if (a[i] != b[i]) {
+							return Integer.compare(a[i], b[i]);
+						}
+					}
+					return Integer.compare(a.length, b.length);
+				}
+			});
+			hash = Arrays.deepHashCode(clauses);
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object other) {
+			return (other instanceof ComponentKey) && hash == ((ComponentKey) other).hash
+					&& Arrays.deepEquals(clauses, ((ComponentKey) other).clauses);
+		}
+	}
+}
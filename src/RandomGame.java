@@ -0,0 +1,110 @@
+/**
+ * Generator of random Clue games. The cards are dealt at random, and each turn the next player makes a
+ * random suggestion that is refuted by the first player after them holding one of its cards, following the
+ * rules of the game. The moves are recorded on a ClueReasoner from the point of view of one player, who
+ * knows their own hand and sees the cards shown to them or by them.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.util.*;
+
+public class RandomGame {
+
+	private long seed;
+	private int numSuggestions;
+
+	/**
+	 * @param seed				the seed of the game, which determines the deal and all moves
+	 * @param numSuggestions	the number of suggestions made during the game
+	 */
+	public RandomGame(long seed, int numSuggestions) {
+		this.seed = seed;
+		this.numSuggestions = numSuggestions;
+	}
+
+	/**
+	 * Play the game on a reasoner, from the point of view of its first player.
+	 *
+	 * @param reasoner	the reasoner
+	 *
+	 * @return the location of every card: the number of the player holding it, or the number of players
+	 * 			for the case file
+	 */
+	public int[] play(ClueReasoner reasoner) {
+		Random random = new Random(seed);
+		String[] players = reasoner.getPlayers();
+		String[] suspects = reasoner.getSuspects();
+		String[] weapons = reasoner.getWeapons();
+		String[] rooms = reasoner.getRooms();
+		String[] cards = reasoner.getCards();
+		int numPlayers = players.length;
+		HashMap<String, Integer> location = new HashMap<String, Integer>();
+
+		// Put one card of each category in the case file and deal the others in turn.
+		String[] solution = { suspects[random.nextInt(suspects.length)], weapons[random.nextInt(weapons.length)],
+				rooms[random.nextInt(rooms.length)] };
+		ArrayList<String> deck = new ArrayList<String>(Arrays.asList(cards));
+		for (String card : solution) {
+			deck.remove(card);
+			location.put(card, numPlayers);
+		}
+		Collections.shuffle(deck, random);
+		ArrayList<String> myHand = new ArrayList<String>();
+		for (int i = 0; i < deck.size(); i++) {
+			location.put(deck.get(i), i % numPlayers);
+			if (i % numPlayers == 0) {
+				myHand.add(deck.get(i));
+			}
+		}
+		reasoner.hand(players[0], myHand.toArray(new String[myHand.size()]));
+
+		for (int turn = 0; turn < numSuggestions; turn++) {
+			int suggester = turn % numPlayers;
+			String[] suggested = { suspects[random.nextInt(suspects.length)],
+					weapons[random.nextInt(weapons.length)], rooms[random.nextInt(rooms.length)] };
+			String refuter = null;
+			String cardShown = null;
+			for (int k = 1; k < numPlayers && refuter == null; k++) {
+				int player = (suggester + k) % numPlayers;
+				ArrayList<String> held = new ArrayList<String>();
+				for (String card : suggested) {
+					if (location.get(card) == player) {
+						held.add(card);
+					}
+				}
+				if (!held.isEmpty()) {
+					refuter = players[player];
+					if (suggester == 0 || player == 0) {
+						cardShown = held.get(random.nextInt(held.size()));
+					}
+				}
+			}
+			reasoner.suggest(players[suggester], suggested[0], suggested[1], suggested[2], refuter, cardShown);
+		}
+
+		int[] locations = new int[cards.length];
+		for (int c = 0; c < cards.length; c++) {
+			locations[c] = location.get(cards[c]);
+		}
+		return locations;
+	}
+}
@@ -0,0 +1,316 @@
+/**
+ * Binary snapshot of a ClueReasoner and the knowledge base of its solver, so that a reasoner can be
+ * restored without replaying the moves of its game. A snapshot holds the clause arena (the lengths of all
+ * clauses followed by all of their literals), the fixed literals (the notepad cells the reasoner had
+ * determined, which are added back as unit clauses), the notepad state, and whether symmetry breaking is on.
+ * Snapshots are written through a file channel and read from a memory-mapped file.
+ *
+ * Layout, with big-endian integers: magic, version, flags (1 for symmetry breaking), number of players,
+ * number of cards, number of clauses, number of literals, clause lengths, literals, number of fixed literals,
+ * fixed literals, number of words of changed variables, words of changed variables (longs), notepad statuses
+ * (bytes), then the player and card names (each a short length and UTF-8 bytes).
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class ReasonerSnapshot {
+
+	public static final int MAGIC = 0x434C5545; // "CLUE"
+	public static final int VERSION = 3; // version 1 had no flags, versions 1 and 2 had union-find parents
+
+	private static final int SYMMETRY_BREAKING = 1;
+
+	/**
+	 * Write a snapshot of a reasoner to a file.
+	 *
+	 * @param reasoner	the reasoner
+	 * @param file		the file, which is replaced if it exists
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(ClueReasoner reasoner, Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			write(reasoner, channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Write a snapshot of a reasoner to a channel.
+	 *
+	 * @param reasoner	the reasoner
+	 * @param channel	the channel
+	 *
+	 * @throws IOException if the channel cannot be written
+	 */
+	public static void write(ClueReasoner reasoner, WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = toBuffer(reasoner);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Write snapshots of several reasoners one after another to a file, so that they can all be restored
+	 * from a single mapping of the file.
+	 *
+	 * @param reasoners	the reasoners
+	 * @param file		the file, which is replaced if it exists
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeAll(List<ClueReasoner> reasoners, Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			for (ClueReasoner reasoner : reasoners) {
+				write(reasoner, channel);
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Encode a snapshot of a reasoner.
+	 *
+	 * @param reasoner	the reasoner
+	 *
+	 * @return a buffer holding the snapshot, positioned at its start
+	 */
+	public static ByteBuffer toBuffer(ClueReasoner reasoner) {
+		ArrayList<int[]> clauses = reasoner.getSolver().clauses;
+		int[][] notepad = reasoner.getNotepad();
+		long[] changedVars = reasoner.getChangedVars().toLongArray();
+		String[] players = reasoner.getPlayers();
+		String[] cards = reasoner.getCards();
+		int numPlayers = players.length;
+		int numCards = cards.length;
+
+		int numLiterals = 0;
+		for (int[] clause : clauses) {
+			numLiterals += clause.length;
+		}
+		int numFixed = 0;
+		for (int p = 0; p <= numPlayers; p++) {
+			for (int c = 0; c < numCards; c++) {
+				if (notepad[p][c] != SATSolver.UNKNOWN) {
+					numFixed++;
+				}
+			}
+		}
+		byte[][] names = new byte[numPlayers + numCards][];
+		int namesSize = 0;
+		for (int i = 0; i < names.length; i++) {
+			names[i] = ((i < numPlayers) ? players[i] : cards[i - numPlayers]).getBytes(StandardCharsets.UTF_8);
+			namesSize += 2 + names[i].length;
+		}
+
+		int size = 4 * (7 + clauses.size() + numLiterals + 1 + numFixed + 1)
+				+ 8 * changedVars.length + (numPlayers + 1) * numCards + namesSize;
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(reasoner.isSymmetryBreaking() ? SYMMETRY_BREAKING : 0);
+		buffer.putInt(numPlayers).putInt(numCards);
+		buffer.putInt(clauses.size()).putInt(numLiterals);
+		for (int[] clause : clauses) {
+			buffer.putInt(clause.length);
+		}
+		for (int[] clause : clauses) {
+			for (int literal : clause) {
+				buffer.putInt(literal);
+			}
+		}
+		buffer.putInt(numFixed);
+		for (int p = 0; p <= numPlayers; p++) {
+			for (int c = 0; c < numCards; c++) {
+				if (notepad[p][c] != SATSolver.UNKNOWN) {
+					int var = reasoner.getPairNum(p, c);
+					buffer.putInt((notepad[p][c] == SATSolver.TRUE) ? var : -var);
+				}
+			}
+		}
+		buffer.putInt(changedVars.length);
+		for (long word : changedVars) {
+			buffer.putLong(word);
+		}
+		for (int p = 0; p <= numPlayers; p++) {
+			for (int c = 0; c < numCards; c++) {
+				buffer.put((byte) notepad[p][c]);
+			}
+		}
+		for (byte[] name : names) {
+			buffer.putShort((short) name.length);
+			buffer.put(name);
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Restore a reasoner from a snapshot file, which is memory-mapped while it is read.
+	 *
+	 * @param file		the snapshot file
+	 * @param solver	an empty solver that receives the knowledge base
+	 *
+	 * @return the restored reasoner
+	 *
+	 * @throws IOException if the file cannot be read or is not a valid snapshot
+	 */
+	public static ClueReasoner read(Path file, SATSolver solver) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), solver);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Restore all reasoners from a file written by writeAll().
+	 *
+	 * @param file		the snapshot file
+	 * @param prototype	an empty solver; each reasoner gets a fork of it
+	 *
+	 * @return the restored reasoners, in the order they were written
+	 *
+	 * @throws IOException if the file cannot be read or holds an invalid snapshot
+	 */
+	public static ArrayList<ClueReasoner> readAll(Path file, SATSolver prototype) throws IOException {
+		ArrayList<ClueReasoner> reasoners = new ArrayList<ClueReasoner>();
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			while (buffer.hasRemaining()) {
+				reasoners.add(read(buffer, prototype.fork()));
+			}
+		} finally {
+			channel.close();
+		}
+		return reasoners;
+	}
+
+	/**
+	 * Restore a reasoner from a snapshot held in a buffer. The buffer is read from its current position, and
+	 * is left positioned after the snapshot, so several snapshots can be stored one after another.
+	 *
+	 * @param buffer	the buffer
+	 * @param solver	an empty solver that receives the knowledge base
+	 *
+	 * @return the restored reasoner
+	 *
+	 * @throws IOException if the buffer does not hold a valid snapshot
+	 */
+	public static ClueReasoner read(ByteBuffer buffer, SATSolver solver) throws IOException {
+		try {
+			buffer.order(ByteOrder.BIG_ENDIAN);
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a reasoner snapshot");
+			}
+			int version = buffer.getInt();
+			if (version < 1 || version > VERSION) {
+				throw new IOException("Unsupported snapshot version: " + version);
+			}
+			int flags = (version >= 2) ? buffer.getInt() : 0;
+			int numPlayers = buffer.getInt();
+			int numCards = buffer.getInt();
+			int numClauses = buffer.getInt();
+			int numLiterals = buffer.getInt();
+
+			IntBuffer ints = buffer.asIntBuffer();
+			int[] lengths = new int[numClauses];
+			ints.get(lengths);
+			int[] literals = new int[numLiterals];
+			ints.get(literals);
+			int numFixed = ints.get();
+			int[] fixed = new int[numFixed];
+			ints.get(fixed);
+			if (version < 3) {
+				ints.position(ints.position() + (numPlayers + 1) * numCards + 1); // the union-find parents
+			}
+			int numWords = ints.get();
+			buffer.position(buffer.position() + 4 * ints.position());
+
+			long[] words = new long[numWords];
+			buffer.asLongBuffer().get(words);
+			buffer.position(buffer.position() + 8 * numWords);
+			int[][] notepad = new int[numPlayers + 1][numCards];
+			for (int p = 0; p <= numPlayers; p++) {
+				for (int c = 0; c < numCards; c++) {
+					notepad[p][c] = buffer.get();
+				}
+			}
+			String[] players = new String[numPlayers];
+			for (int i = 0; i < numPlayers; i++) {
+				players[i] = readName(buffer);
+			}
+			String[] cards = new String[numCards];
+			for (int i = 0; i < numCards; i++) {
+				cards[i] = readName(buffer);
+			}
+
+			ClueReasoner reasoner = new ClueReasoner(solver, false);
+			if (!Arrays.equals(cards, reasoner.getCards()) || numPlayers != reasoner.getPlayers().length) {
+				throw new IOException("Snapshot was taken with different players or cards");
+			}
+
+			// Load the clause arena, then add back the fixed literals that are not unit clauses already. The
+			// clauses go through addClause(), so that the solver knows its knowledge base changed.
+			HashSet<Integer> units = new HashSet<Integer>();
+			solver.clauses.ensureCapacity(numClauses + numFixed);
+			int offset = 0;
+			for (int length : lengths) {
+				int[] clause = Arrays.copyOfRange(literals, offset, offset + length);
+				offset += length;
+				solver.addClause(clause);
+				if (length == 1) {
+					units.add(clause[0]);
+				}
+			}
+			for (int literal : fixed) {
+				if (!units.contains(literal)) {
+					solver.addClause(new int[] { literal });
+				}
+			}
+
+			reasoner.restoreState(players, notepad, BitSet.valueOf(words));
+			reasoner.setSymmetryBreaking((flags & SYMMETRY_BREAKING) != 0);
+			return reasoner;
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated snapshot");
+		}
+	}
+
+	private static String readName(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
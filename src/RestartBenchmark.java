@@ -0,0 +1,92 @@
+/**
+ * Benchmark of the restart policies of DPLLSolver. Each policy fills in the full notepad of the scripted
+ * games and of a few generated games, once for each of many random seeds. Because the seed changes the
+ * branching order, the spread of the running times shows how heavy the tail of each policy is: the mean,
+ * median, 90th percentile and maximum time per notepad are printed for every policy and game.
+ *
+ * Usage: java RestartBenchmark [number of seeds] [number of generated games]
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.util.*;
+
+public class RestartBenchmark {
+
+	private static final int SUGGESTIONS_PER_GENERATED_GAME = 25;
+
+	public static void main(String[] args) {
+		int numSeeds = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+		int numGenerated = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+		RestartPolicy[] policies = { RestartPolicy.never(), RestartPolicy.fixed(100),
+				RestartPolicy.geometric(100, 1.5), RestartPolicy.luby(32), RestartPolicy.movingAverage(50) };
+		int numGames = 3 + numGenerated;
+
+		System.out.println("Policy\t\t\tGame\tMean\tMedian\t90th\tMax\tRestarts");
+		for (RestartPolicy policy : policies) {
+			for (int game = 0; game < numGames; game++) {
+				long[] times = new long[numSeeds];
+				long restarts = 0;
+				for (int seed = 0; seed < numSeeds; seed++) {
+					DPLLSolver solver = new DPLLSolver(true, policy.copy(), seed);
+					ClueReasoner reasoner = new ClueReasoner(solver);
+					if (game < 3) {
+						reasoner.playGame(game + 1);
+					} else {
+						new RandomGame(game, SUGGESTIONS_PER_GENERATED_GAME).play(reasoner);
+					}
+					long time = System.currentTimeMillis();
+					fillNotepad(reasoner);
+					times[seed] = System.currentTimeMillis() - time;
+					restarts += solver.getTotalRestarts();
+				}
+				Arrays.sort(times);
+				long sum = 0;
+				for (long time : times) {
+					sum += time;
+				}
+				String gameName = (game < 3) ? "" + (game + 1) : "G" + (game - 2);
+				System.out.println(pad(policy.getName()) + "\t" + gameName + "\t" + (sum / numSeeds) + "\t"
+						+ times[numSeeds / 2] + "\t" + times[(int) Math.ceil(0.9 * numSeeds) - 1] + "\t"
+						+ times[numSeeds - 1] + "\t" + restarts);
+			}
+		}
+	}
+
+	// Query every notepad cell with a full search, without the reasoner's probing.
+	private static void fillNotepad(ClueReasoner reasoner) {
+		SATSolver solver = reasoner.getSolver();
+		int numPlayers = reasoner.getPlayers().length;
+		int numCards = reasoner.getCards().length;
+		for (int p = 0; p <= numPlayers; p++) {
+			for (int c = 0; c < numCards; c++) {
+				solver.testLiteral(reasoner.getPairNum(p, c));
+			}
+		}
+	}
+
+	private static String pad(String name) {
+		while (name.length() < 24) {
+			name += " ";
+		}
+		return name;
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ * Restart strategy for a backtracking search. The search reports every conflict (a branch in which a clause
+ * became false) with the decision depth at which it happened, and the policy tells it when to give up the
+ * current branching choices and start again from the root. Four strategies are available:
+ *
+ *   fixed           restart every n conflicts
+ *   geometric       restart after n conflicts, then multiply the interval by a factor each time
+ *   Luby            restart after n times the next term of the Luby sequence (1, 1, 2, 1, 1, 2, 4, ...)
+ *   moving average  glucose-style: restart when the recent conflicts happen deeper than the long-term
+ *                   average; since no clauses are learned, the decision depth of a conflict stands in for
+ *                   the LBD of the learned clause
+ *
+ * After a maximum number of restarts the policy stops restarting, so that a search that needs more
+ * conflicts than any interval allows still terminates.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+public class RestartPolicy {
+
+	public static final int FIXED = 0;
+	public static final int GEOMETRIC = 1;
+	public static final int LUBY = 2;
+	public static final int MOVING_AVERAGE = 3;
+
+	public static final int DEFAULT_MAX_RESTARTS = 1000;
+
+	private static final double FAST_DECAY = 1.0 / 32; // weight of a new conflict in the recent average
+	private static final double SLOW_DECAY = 1.0 / 4096; // weight of a new conflict in the long-term average
+	private static final double MARGIN = 1.25; // how much deeper recent conflicts must be to restart
+
+	private int type;
+	private int interval; // conflicts before the first restart, or the unit of the Luby sequence
+	private double factor; // growth of the interval for geometric restarts
+	private int maxRestarts;
+
+	private int restarts; // restarts in the current search
+	private long conflictsSinceRestart;
+	private double limit; // conflicts allowed before the next restart
+	private double fastAverage;
+	private double slowAverage;
+	private long conflicts; // conflicts in the current search
+
+	private RestartPolicy(int type, int interval, double factor, int maxRestarts) {
+		this.type = type;
+		this.interval = interval;
+		this.factor = factor;
+		this.maxRestarts = maxRestarts;
+		reset();
+	}
+
+	/**
+	 * Create a policy that never restarts, for comparing the same randomized search without restarts.
+	 */
+	public static RestartPolicy never() {
+		return new RestartPolicy(FIXED, 1, 1, 0);
+	}
+
+	public static RestartPolicy fixed(int interval) {
+		return new RestartPolicy(FIXED, interval, 1, DEFAULT_MAX_RESTARTS);
+	}
+
+	public static RestartPolicy geometric(int interval, double factor) {
+		return new RestartPolicy(GEOMETRIC, interval, factor, DEFAULT_MAX_RESTARTS);
+	}
+
+	public static RestartPolicy luby(int unit) {
+		return new RestartPolicy(LUBY, unit, 1, DEFAULT_MAX_RESTARTS);
+	}
+
+	/**
+	 * Create a glucose-style policy.
+	 *
+	 * @param minConflicts	the number of conflicts after a restart before the next one may happen
+	 */
+	public static RestartPolicy movingAverage(int minConflicts) {
+		return new RestartPolicy(MOVING_AVERAGE, minConflicts, 1, DEFAULT_MAX_RESTARTS);
+	}
+
+	/**
+	 * Create a policy of the same kind and settings, in its initial state.
+	 */
+	public RestartPolicy copy() {
+		return new RestartPolicy(type, interval, factor, maxRestarts);
+	}
+
+	public RestartPolicy withMaxRestarts(int maxRestarts) {
+		return new RestartPolicy(type, interval, factor, maxRestarts);
+	}
+
+	/**
+	 * Prepare for a new search.
+	 */
+	public void reset() {
+		restarts = 0;
+		conflicts = 0;
+		conflictsSinceRestart = 0;
+		fastAverage = 0;
+		slowAverage = 0;
+		limit = nextLimit();
+	}
+
+	/**
+	 * Report a conflict.
+	 *
+	 * @param depth	the number of decisions on the branch of the conflict
+	 *
+	 * @return true if the search should restart now, false otherwise
+	 */
+	public boolean onConflict(int depth) {
+		conflicts++;
+		conflictsSinceRestart++;
+		if (conflicts == 1) {
+			fastAverage = depth;
+			slowAverage = depth;
+		} else {
+			fastAverage += FAST_DECAY * (depth - fastAverage);
+			slowAverage += SLOW_DECAY * (depth - slowAverage);
+		}
+		if (restarts >= maxRestarts) {
+			return false;
+		}
+		if (type == MOVING_AVERAGE) {
+			return conflictsSinceRestart >= interval && fastAverage > MARGIN * slowAverage;
+		}
+		return conflictsSinceRestart >= limit;
+	}
+
+	/**
+	 * Report that the search restarted.
+	 */
+	public void onRestart() {
+		restarts++;
+		conflictsSinceRestart = 0;
+		fastAverage = slowAverage;
+		limit = nextLimit();
+	}
+
+	public String getName() {
+		if (maxRestarts == 0) {
+			return "none";
+		}
+		switch (type) {
+		case FIXED:
+			return "fixed(" + interval + ")";
+		case GEOMETRIC:
+			return "geometric(" + interval + ", " + factor + ")";
+		case LUBY:
+			return "luby(" + interval + ")";
+		default:
+			return "moving average(" + interval + ")";
+		}
+	}
+
+	public int getRestarts() {
+		return restarts;
+	}
+
+	public long getConflicts() {
+		return conflicts;
+	}
+
+	// Number of conflicts allowed before the next restart, given the number of restarts so far.
+	private double nextLimit() {
+		switch (type) {
+		case GEOMETRIC:
+			return interval * Math.pow(factor, restarts);
+		case LUBY:
+			return interval * (double) lubyTerm(restarts + 1);
+		default:
+			return interval;
+		}
+	}
+
+	/**
+	 * Compute a term of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+	 *
+	 * @param i	the index of the term, from 1
+	 *
+	 * @return the term
+	 */
+	public static long lubyTerm(int i) {
+		int k = 1;
+		while ((1L << k) - 1 < i) {
+			k++;
+		}
+		while ((1L << k) - 1 != i) {
+			i -= (int) ((1L << (k - 1)) - 1);
+			k = 1;
+			while ((1L << k) - 1 < i) {
+				k++;
+			}
+		}
+		return 1L << (k - 1);
+	}
+}
@@ -34,15 +34,51 @@ public abstract class SATSolver
     public static final int UNKNOWN = 0;
     public static final int TRUE = 1;
 
+    private static final int MAX_KNOWN_MODELS = 8;
+
     public ArrayList<int[]> clauses = new ArrayList<int[]>();
     public ArrayList<int[]> queryClauses = new ArrayList<int[]>();
 
+    private long clauseVersion;
+    private UnitPropagator propagator; // level-0 propagator over the clauses, rebuilt when they change
+    private ArrayList<int[]> propagatorClauses;
+    private int propagatorSize;
+    private long propagatorVersion;
+    private ArrayList<int[]> consistentClauses; // clauses known to be satisfiable, with their number
+    private int consistentSize = -1;
+    private long consistentVersion;
+    private HashSet<Long> equivalences = new HashSet<Long>(); // equivalences added to the clauses, see addEquivalence()
+    private ArrayList<int[]> equivalencesClauses;
+    private ArrayList<int[]> symmetryClauses; // symmetry-breaking clauses, valid for one version of the clauses
+    private HashMap<Integer, int[]> orbits;
+    private long symmetryVersion = -1;
+    private ArrayList<int[]> knownModels = new ArrayList<int[]>(); // models of the clauses, see rememberModel()
+    private ArrayList<int[]> modelsClauses;
+    private int modelsSize;
+    private long modelsVersion;
+    private long queriesAnsweredByModels;
+    private long literalsProbed;
+    private long literalsSettledByProbing;
+    private long queriesAvoided;
+
     public void addClause(int[] clause) {
         clauses.add((int[]) clause.clone());
+        clauseVersion++;
     }
         
     public void clearClauses() {
         clauses.clear();
+        equivalences.clear();
+        clauseVersion++;
+    }
+
+    /**
+     * Get a number that changes whenever addClause() or clearClauses() is called.
+     * Together with the identity and size of the clauses list, it tells whether the
+     * knowledge base changed since some earlier point.
+     */
+    public long getClauseVersion() {
+        return clauseVersion;
     }
 
     public void addQueryClause(int[] clause) {
@@ -55,24 +91,360 @@ public abstract class SATSolver
 
     public abstract boolean makeQuery();
 
+    /**
+     * Create an empty solver of the same kind and with the same settings as this one.
+     */
+    protected abstract SATSolver newSolver();
+
+    /**
+     * Create a solver of the same kind that starts with this solver's knowledge base.
+     * Clauses added to the copy later do not affect this solver, so the copy can be
+     * used to try hypothetical clauses, even from another thread.
+     */
+    public SATSolver fork() {
+        SATSolver copy = newSolver();
+        copy.clauses = new ArrayList<int[]>(clauses);
+        if (equivalencesClauses == clauses) {
+            copy.equivalences.addAll(equivalences);
+            copy.equivalencesClauses = copy.clauses;
+        }
+        return copy;
+    }
+
     public int testLiteral(int literal) {
         int result = UNKNOWN;
-        clearQueryClauses();   
-        int[] clauseT = {literal};
-        addQueryClause(clauseT);
-        if (!makeQuery())
+        if (!hasKnownModel(literal) && !query(literal))
             result = FALSE;
         else {
-            clearQueryClauses();
-            int[] clauseF = {-literal};
-            addQueryClause(clauseF);
-            if (!makeQuery())
+            markConsistent();
+            if (!hasKnownModel(-literal) && !query(-literal))
                 result = TRUE;
         }
         clearQueryClauses();
         return result;
     }       
 
+    /*
+     * Ask if the knowledge base allows a literal, remembering the model found if the
+     * solver reports one.
+     */
+    private boolean query(int literal) {
+        clearQueryClauses();
+        addQueryLiteral(literal);
+        if (!makeQuery())
+            return false;
+        rememberModel();
+        return true;
+    }
+
+    // Remember the model of the last satisfiable query, which is also a model of the clauses.
+    private void rememberModel() {
+        int[] model = getModel();
+        if (model == null)
+            return;
+        if (modelsClauses != clauses || modelsSize != clauses.size() || modelsVersion != clauseVersion) {
+            knownModels.clear();
+            modelsClauses = clauses;
+            modelsSize = clauses.size();
+            modelsVersion = clauseVersion;
+        }
+        if (knownModels.size() == MAX_KNOWN_MODELS)
+            knownModels.remove(0);
+        knownModels.add(model);
+    }
+
+    // Check if a remembered model of the clauses as they are now allows a literal.
+    private boolean hasKnownModel(int literal) {
+        if (modelsClauses != clauses || modelsSize != clauses.size() || modelsVersion != clauseVersion)
+            return false;
+        for (int[] model : knownModels) {
+            if (UnitPropagator.valueOf(model, literal) != FALSE) {
+                queriesAnsweredByModels++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of makeQuery() calls that testLiteral() skipped because a model
+     * found by an earlier query already allowed the literal.
+     */
+    public long getQueriesAnsweredByModels() {
+        return queriesAnsweredByModels;
+    }
+
+    /**
+     * Get the model found by the last call to makeQuery() that returned true.
+     *
+     * @return the value of each variable, indexed by variable, where UNKNOWN means that
+     *         either value completes the model; or null if this solver does not report
+     *         models
+     */
+    public int[] getModel() {
+        return null;
+    }
+
+    /**
+     * Answer testLiteral() for several literals at once, backbone style: each model
+     * found along the way shows, for every literal still open, a value it can take, so
+     * most literals need at most one search instead of two. Literals that probing can
+     * settle are settled first. Solvers that do not report models test each literal on
+     * its own.
+     *
+     * @param literals the literals
+     *
+     * @return for each literal, the answer testLiteral() would give
+     */
+    public int[] testLiterals(int[] literals) {
+        int[] results = probe(literals);
+        boolean[] canBeTrue = new boolean[literals.length];
+        boolean[] canBeFalse = new boolean[literals.length];
+        boolean open = false;
+        for (int i = 0; i < literals.length; i++)
+            open |= results[i] == UNKNOWN;
+        if (!open)
+            return results;
+
+        // Probing checked that the knowledge base is satisfiable, but a model of it is needed.
+        clearQueryClauses();
+        if (makeQuery())
+            addModel(literals, results, canBeTrue, canBeFalse);
+        for (int i = 0; i < literals.length; i++) {
+            if (results[i] != UNKNOWN)
+                continue;
+            if (!canBeTrue[i]) {
+                clearQueryClauses();
+                addQueryClause(new int[] {literals[i]});
+                if (makeQuery())
+                    addModel(literals, results, canBeTrue, canBeFalse);
+                else
+                    results[i] = FALSE;
+            }
+            if (results[i] == UNKNOWN && !canBeFalse[i]) {
+                clearQueryClauses();
+                addQueryClause(new int[] {-literals[i]});
+                if (makeQuery())
+                    addModel(literals, results, canBeTrue, canBeFalse);
+                else
+                    results[i] = TRUE;
+            }
+        }
+        clearQueryClauses();
+        return results;
+    }
+
+    // Record the values the open literals take in the last model, or test them one by one without models.
+    private void addModel(int[] literals, int[] results, boolean[] canBeTrue, boolean[] canBeFalse) {
+        rememberModel();
+        int[] model = getModel();
+        for (int i = 0; i < literals.length; i++) {
+            if (results[i] != UNKNOWN)
+                continue;
+            if (model == null) {
+                canBeTrue[i] = canBeFalse[i] = true;
+                results[i] = testLiteral(literals[i]);
+                continue;
+            }
+            int value = UnitPropagator.valueOf(model, literals[i]);
+            canBeTrue[i] |= value != FALSE;
+            canBeFalse[i] |= value != TRUE;
+        }
+    }
+
+    /**
+     * Give the solver symmetries of the knowledge base as it is now, so that queries
+     * skip assignments that are permutations of each other. The symmetry-breaking
+     * clauses must keep at least one model out of every orbit of models, and the orbit
+     * of a literal lists every literal it is mapped to by the symmetries. testLiteral()
+     * then asks whether some literal of the orbit can hold together with the
+     * symmetry-breaking clauses, which has the same answer as asking about the literal
+     * without them. The symmetries are forgotten as soon as the clauses change.
+     *
+     * @param breakingClauses the symmetry-breaking clauses
+     * @param orbits          the orbit of each literal that has more than itself
+     */
+    public void setSymmetries(ArrayList<int[]> breakingClauses, HashMap<Integer, int[]> orbits) {
+        symmetryClauses = breakingClauses;
+        this.orbits = orbits;
+        symmetryVersion = clauseVersion;
+    }
+
+    public boolean hasSymmetries() {
+        return symmetryClauses != null && symmetryVersion == clauseVersion;
+    }
+
+    // Add a query clause asking for a literal, or for its orbit under the symmetries.
+    private void addQueryLiteral(int literal) {
+        if (!hasSymmetries()) {
+            addQueryClause(new int[] {literal});
+            return;
+        }
+        for (int[] clause : symmetryClauses)
+            addQueryClause(clause);
+        int[] orbit = orbits.get(literal);
+        addQueryClause((orbit != null) ? orbit : new int[] {literal});
+    }
+
+    /**
+     * Try to settle literals by failed-literal probing: each literal and its negation
+     * are assumed in turn and only unit propagation is run. A literal whose assumption
+     * leads to a conflict is false, and a literal implied by both assumptions is true;
+     * both are added to the knowledge base as unit clauses, so later propagation and
+     * searches start from them. When both assumptions propagate, a variable that gets
+     * opposite values from the two sides is equivalent to the literal, and the two
+     * binary clauses of the equivalence are added to the knowledge base as well.
+     *
+     * @param literals the literals to settle
+     *
+     * @return for each literal, TRUE or FALSE as testLiteral() would answer, or UNKNOWN
+     *         if probing could not settle it and a full search is needed
+     */
+    public int[] probe(int[] literals) {
+        int[] results = new int[literals.length];
+        UnitPropagator up = getPropagator();
+        if (!up.isConsistent()) {
+            Arrays.fill(results, FALSE);
+            recordSettled(literals.length, literals.length);
+            return results;
+        }
+        // Answering TRUE also requires the knowledge base to be satisfiable.
+        if (!isConsistent()) {
+            Arrays.fill(results, FALSE);
+            recordSettled(literals.length, 0);
+            return results;
+        }
+
+        boolean equivalencesAdded = false;
+        for (int i = 0; i < literals.length; i++) {
+            int literal = literals[i];
+            literalsProbed++;
+            results[i] = up.valueAtLevelZero(literal);
+            if (results[i] == UNKNOWN) {
+                int[] valuesT = up.propagate(new int[] {literal});
+                int[] valuesF = up.propagate(new int[] {-literal});
+                if (valuesT == null) {
+                    fixLiteral(up, -literal);
+                    results[i] = FALSE;
+                } else if (valuesF == null) {
+                    fixLiteral(up, literal);
+                    results[i] = TRUE;
+                } else {
+                    for (int var = 1; var < valuesT.length; var++) {
+                        if (valuesT[var] == UNKNOWN || up.valueAtLevelZero(var) != UNKNOWN)
+                            continue;
+                        if (valuesT[var] == valuesF[var])
+                            fixLiteral(up, valuesT[var] * var);
+                        else if (valuesF[var] == -valuesT[var] && var != Math.abs(literal))
+                            equivalencesAdded |= addEquivalence(var, (valuesT[var] == TRUE) ? literal : -literal);
+                    }
+                }
+            }
+            if (results[i] != UNKNOWN)
+                recordSettled(1, (results[i] == FALSE) ? 1 : 2);
+        }
+        // The propagator was kept up to date with the unit clauses only.
+        if (equivalencesAdded)
+            propagator = null;
+        return results;
+    }
+
+    public long getLiteralsProbed() {
+        return literalsProbed;
+    }
+
+    public long getLiteralsSettledByProbing() {
+        return literalsSettledByProbing;
+    }
+
+    /**
+     * Get the number of makeQuery() calls that testLiteral() would have made for the
+     * literals settled by probing.
+     */
+    public long getQueriesAvoided() {
+        return queriesAvoided;
+    }
+
+    private void recordSettled(int literals, int queries) {
+        literalsSettledByProbing += literals;
+        queriesAvoided += queries;
+    }
+
+    // Add a literal that follows from the knowledge base as a unit clause.
+    private void fixLiteral(UnitPropagator up, int literal) {
+        boolean wasConsistent = isKnownConsistent();
+        up.fix(literal);
+        addClause(new int[] {literal});
+        propagatorSize = clauses.size();
+        propagatorVersion = clauseVersion;
+        if (wasConsistent)
+            markConsistent();
+    }
+
+    /*
+     * Add the clauses (-var | literal) and (var | -literal) of an implied equivalence,
+     * unless they were added already.
+     *
+     * @return true if the clauses were added
+     */
+    private boolean addEquivalence(int var, int literal) {
+        if (equivalencesClauses != clauses) {
+            equivalences.clear();
+            equivalencesClauses = clauses;
+        }
+        // The same equivalence is found from either of its variables, with either sign.
+        int low = Math.min(var, Math.abs(literal));
+        int high = Math.max(var, Math.abs(literal));
+        long key = (((long) low) << 32) | (high * ((literal > 0) ? 1L : -1L) & 0xffffffffL);
+        if (!equivalences.add(key))
+            return false;
+        boolean wasConsistent = isKnownConsistent();
+        addClause(new int[] {-var, literal});
+        addClause(new int[] {var, -literal});
+        if (wasConsistent)
+            markConsistent();
+        return true;
+    }
+
+    private UnitPropagator getPropagator() {
+        if (propagator == null || propagatorClauses != clauses || propagatorSize != clauses.size()
+                || propagatorVersion != clauseVersion) {
+            propagator = new UnitPropagator(clauses);
+            propagatorClauses = clauses;
+            propagatorSize = clauses.size();
+            propagatorVersion = clauseVersion;
+        }
+        return propagator;
+    }
+
+    // Remember that the clauses as they are now have a model.
+    /**
+     * Decide if the knowledge base is satisfiable, without query clauses. The answer is
+     * remembered until the clauses change.
+     *
+     * @return true if the knowledge base is satisfiable, false otherwise
+     */
+    public boolean isConsistent() {
+        if (isKnownConsistent())
+            return true;
+        clearQueryClauses();
+        boolean consistent = makeQuery();
+        if (consistent)
+            markConsistent();
+        return consistent;
+    }
+
+    private void markConsistent() {
+        consistentClauses = clauses;
+        consistentSize = clauses.size();
+        consistentVersion = clauseVersion;
+    }
+
+    private boolean isKnownConsistent() {
+        return consistentClauses == clauses && consistentSize == clauses.size()
+                && consistentVersion == clauseVersion;
+    }
+
     public static void main(String[] args) 
     {
         // Liar and truth-teller example test code:
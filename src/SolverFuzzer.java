@@ -0,0 +1,566 @@
+/**
+ * Differential fuzzing and performance-regression harness for the SATSolver implementations. Every engine
+ * answers the same checks, and any check on which they disagree is reported, shrunk and saved:
+ *
+ *   random CNFs   small formulas of mixed clause lengths, whose satisfiability and a few testLiteral()
+ *                 answers are also checked against a brute-force oracle, and larger random 3-SAT formulas
+ *                 near the satisfiability threshold, checked across engines only
+ *   Clue games    random games from RandomGame, whose notepad cells are queried with testLiteral() on every
+ *                 engine and compared with the notepad a ClueReasoner fills in with probing and symmetry
+ *                 breaking
+ *
+ * A disagreeing check is minimized by removing clauses and then literals for as long as the answers still
+ * disagree, and saved in DIMACS format with the answers in comment lines. The oracle takes part whenever the
+ * formula has few enough variables, so most minimized cases also say which answer is right. On Clue games,
+ * a new ClueReasoner answers for every shrunken formula as well; if a new reasoner does not reproduce the
+ * disagreement of the one that played the game, the game is saved whole with the answers it got.
+ *
+ * The time each engine spends on each suite is compared with a baseline properties file, and the run fails
+ * when an engine is slower than its baseline by more than a threshold. Usage:
+ *
+ *   java SolverFuzzer [-seed n] [-cnfs n] [-games n] [-baseline file] [-threshold fraction]
+ *                     [-save-baseline] [-failures dir]
+ *
+ * The exit status is 0 if all engines agreed and none got slower, 1 otherwise.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.io.*;
+import java.util.*;
+
+public class SolverFuzzer {
+
+	public static final String DEFAULT_BASELINE = "fuzz-baseline.properties";
+	public static final String DEFAULT_FAILURE_DIR = "fuzz-failures";
+	public static final double DEFAULT_THRESHOLD = 0.25;
+
+	public static final String ORACLE = "oracle";
+	public static final String REASONER = "reasoner";
+	public static final int ERROR = Integer.MIN_VALUE; // the answer of an engine that threw
+
+	private static final int MAX_ORACLE_VARS = 14;
+	private static final int LITERALS_PER_CNF = 3;
+	private static final int SUGGESTIONS_PER_GAME = 20;
+	private static final long MIN_SLOWDOWN_MILLIS = 50; // smaller slowdowns are treated as noise
+
+	private long seed;
+	private int numCnfs;
+	private int numGames;
+	private File failureDir;
+	private LinkedHashMap<String, SATSolver> engines = new LinkedHashMap<String, SATSolver>();
+	private LinkedHashMap<String, Long> nanos = new LinkedHashMap<String, Long>(); // by engine and suite
+	private int numChecks;
+	private int numDisagreements;
+
+	/**
+	 * @param seed			the seed of the random formulas and games
+	 * @param numCnfs		the number of random CNFs
+	 * @param numGames		the number of random Clue games
+	 * @param failureDir	the directory that receives the minimized disagreeing cases
+	 */
+	public SolverFuzzer(long seed, int numCnfs, int numGames, File failureDir) {
+		this.seed = seed;
+		this.numCnfs = numCnfs;
+		this.numGames = numGames;
+		this.failureDir = failureDir;
+	}
+
+	/**
+	 * Add an engine to the comparison. The same solver answers every check, its clauses replaced each time.
+	 */
+	public void addEngine(String name, SATSolver solver) {
+		engines.put(name, solver);
+	}
+
+	/**
+	 * Add every SATSolver implementation: DPLLSolver with and without value ordering and with restarts,
+	 * ModelCounter, LocalSearchSolver and CubeAndConquerSolver, and ZChaffSolver if the zchaff executable is in
+	 * the working directory.
+	 */
+	public void addDefaultEngines() {
+		addEngine("dpll", new DPLLSolver(false));
+		addEngine("dpll-ordered", new DPLLSolver(true));
+		addEngine("dpll-luby", new DPLLSolver(true, RestartPolicy.luby(32), seed));
+		addEngine("model-counter", new ModelCounter());
+		addEngine("local-search",
+				new LocalSearchSolver(new DPLLSolver(true), LocalSearchSolver.DEFAULT_MAX_FLIPS, seed));
+		addEngine("cube-and-conquer", new CubeAndConquerSolver(2, 3));
+		if (new File("zchaff").canExecute()) {
+			addEngine("zchaff", new ZChaffSolver());
+		}
+	}
+
+	/**
+	 * Run all checks.
+	 *
+	 * @return the number of checks on which the engines disagreed
+	 */
+	public int run() throws IOException {
+		fuzzCnfs();
+		fuzzGames();
+		return numDisagreements;
+	}
+
+	public int getNumChecks() {
+		return numChecks;
+	}
+
+	/**
+	 * Get the time each engine spent on each suite, in milliseconds, keyed by engine and suite name. The
+	 * settings of the run are under the key "settings", since timings of different runs are not comparable.
+	 */
+	public Properties getTimings() {
+		Properties timings = new Properties();
+		timings.setProperty("settings", "seed=" + seed + " cnfs=" + numCnfs + " games=" + numGames);
+		for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+			timings.setProperty(entry.getKey(), "" + entry.getValue() / 1000000);
+		}
+		return timings;
+	}
+
+	/**
+	 * Stop the worker processes of engines that have them.
+	 */
+	public void close() {
+		for (SATSolver solver : engines.values()) {
+			if (solver instanceof CubeAndConquerSolver) {
+				((CubeAndConquerSolver) solver).close();
+			}
+		}
+	}
+
+	/**
+	 * Compare timings with a baseline.
+	 *
+	 * @param timings	the timings of this run
+	 * @param baseline	the timings of the baseline run
+	 * @param threshold	the fraction by which a timing may exceed its baseline
+	 *
+	 * @return a description of each timing that exceeded its baseline by more than the threshold, empty if the
+	 * 			baseline was made with other settings
+	 */
+	public static ArrayList<String> findRegressions(Properties timings, Properties baseline, double threshold) {
+		ArrayList<String> regressions = new ArrayList<String>();
+		if (!timings.getProperty("settings").equals(baseline.getProperty("settings"))) {
+			return regressions;
+		}
+		for (String key : new TreeSet<String>(timings.stringPropertyNames())) {
+			String old = baseline.getProperty(key);
+			if (key.equals("settings") || old == null) {
+				continue;
+			}
+			long millis = Long.parseLong(timings.getProperty(key));
+			long oldMillis = Long.parseLong(old);
+			if (millis > oldMillis * (1 + threshold) && millis - oldMillis >= MIN_SLOWDOWN_MILLIS) {
+				regressions.add(key + ": " + millis + " ms, baseline " + oldMillis + " ms");
+			}
+		}
+		return regressions;
+	}
+
+	private void fuzzCnfs() throws IOException {
+		Random random = new Random(seed);
+		for (int i = 0; i < numCnfs; i++) {
+			boolean small = i % 2 == 0;
+			int numVars = small ? 3 + random.nextInt(MAX_ORACLE_VARS - 2) : 20 + random.nextInt(21);
+			int numClauses = (int) Math.round(numVars * (small ? 2 + 3 * random.nextDouble() : 4.26));
+			ArrayList<int[]> clauses = new ArrayList<int[]>();
+			for (int c = 0; c < numClauses; c++) {
+				int length = small ? 1 + random.nextInt(4) : 3;
+				if (small && length == 1 && random.nextInt(3) != 0) {
+					length = 2; // keep unit clauses rare enough that the formulas are not all decided by them
+				}
+				int[] clause = new int[length];
+				for (int l = 0; l < length; l++) {
+					clause[l] = (1 + random.nextInt(numVars)) * (random.nextBoolean() ? 1 : -1);
+				}
+				clauses.add(clause);
+			}
+			String label = (small ? "small" : "3-SAT") + " CNF " + i;
+			check("cnf", label, clauses, 0);
+			for (int l = 0; l < LITERALS_PER_CNF; l++) {
+				check("cnf", label, clauses, (1 + random.nextInt(numVars)) * (random.nextBoolean() ? 1 : -1));
+			}
+		}
+	}
+
+	private void fuzzGames() throws IOException {
+		for (int g = 0; g < numGames; g++) {
+			long gameSeed = seed + g;
+			ClueReasoner reasoner = new ClueReasoner(new DPLLSolver(true));
+			reasoner.setSymmetryBreaking(true);
+			new RandomGame(gameSeed, SUGGESTIONS_PER_GAME * g / Math.max(1, numGames - 1)).play(reasoner);
+			ArrayList<int[]> clauses = new ArrayList<int[]>(reasoner.getSolver().clauses);
+
+			long time = System.nanoTime();
+			reasoner.refreshNotepad();
+			addTime(REASONER, "clue", System.nanoTime() - time);
+			int[][] notepad = reasoner.getNotepad();
+			for (int p = 0; p < notepad.length; p++) {
+				for (int c = 0; c < notepad[p].length; c++) {
+					HashMap<String, Integer> known = new HashMap<String, Integer>();
+					known.put(REASONER, notepad[p][c]);
+					check("clue", "Clue game with seed " + gameSeed, clauses, reasoner.getPairNum(p, c), known);
+				}
+			}
+		}
+	}
+
+	private void check(String suite, String label, ArrayList<int[]> clauses, int literal) throws IOException {
+		check(suite, label, clauses, literal, new HashMap<String, Integer>());
+	}
+
+	/*
+	 * Check that every engine gives the same answer, and the oracle if the formula is small enough.
+	 *
+	 * @param literal	the literal to test, or 0 to check satisfiability
+	 * @param known		answers already given by something other than the engines
+	 */
+	private void check(String suite, String label, ArrayList<int[]> clauses, int literal,
+			HashMap<String, Integer> known) throws IOException {
+		numChecks++;
+		LinkedHashMap<String, Integer> answers = answer(clauses, literal, suite);
+		answers.putAll(known);
+		if (agree(answers)) {
+			return;
+		}
+
+		numDisagreements++;
+		// A new reasoner answers for every candidate, so that a disagreement of the reasoner's own is kept.
+		boolean withReasoner = known.containsKey(REASONER);
+		File file;
+		if (agree(minimizingAnswers(clauses, literal, withReasoner))) {
+			// Only the reasoner that played the game disagrees, so the check is saved whole, with its answers.
+			file = save(label, clauses, literal, answers, false);
+		} else {
+			ArrayList<int[]> minimized = minimize(clauses, literal, withReasoner);
+			file = save(label, minimized, literal, minimizingAnswers(minimized, literal, withReasoner), true);
+		}
+		System.out.println("DISAGREEMENT on " + label + ", " + describeQuery(literal) + ": " + describe(answers));
+		System.out.println("\tsaved in " + file);
+	}
+
+	/*
+	 * Get every engine's answer, and the oracle's if the formula is small enough.
+	 *
+	 * @param suite	the suite to charge the time to, or null if the time is not measured
+	 */
+	private LinkedHashMap<String, Integer> answer(ArrayList<int[]> clauses, int literal, String suite) {
+		LinkedHashMap<String, Integer> answers = new LinkedHashMap<String, Integer>();
+		for (Map.Entry<String, SATSolver> engine : engines.entrySet()) {
+			SATSolver solver = engine.getValue();
+			long time = System.nanoTime();
+			int answer;
+			try {
+				solver.clearClauses();
+				solver.clearQueryClauses();
+				for (int[] clause : clauses) {
+					solver.addClause(clause);
+				}
+				if (literal == 0) {
+					answer = solver.makeQuery() ? SATSolver.TRUE : SATSolver.FALSE;
+				} else {
+					answer = solver.testLiteral(literal);
+				}
+			} catch (RuntimeException e) {
+				answer = ERROR;
+			} catch (StackOverflowError e) {
+				answer = ERROR;
+			}
+			if (suite != null) {
+				addTime(engine.getKey(), suite, System.nanoTime() - time);
+			}
+			answers.put(engine.getKey(), answer);
+		}
+		Integer expected = bruteForce(clauses, literal);
+		if (expected != null) {
+			answers.put(ORACLE, expected);
+		}
+		return answers;
+	}
+
+	/*
+	 * Get the notepad status that a ClueReasoner, as set up by fuzzGames(), finds for a cell on a knowledge base.
+	 *
+	 * @param literal	the variable of the cell
+	 */
+	private static int reasonerAnswer(ArrayList<int[]> clauses, int literal) {
+		try {
+			ClueReasoner reasoner = new ClueReasoner(new DPLLSolver(true), false);
+			reasoner.setSymmetryBreaking(true);
+			reasoner.addClauses(clauses);
+			reasoner.refreshNotepad();
+			int numCards = reasoner.getCards().length;
+			return reasoner.getNotepad()[(literal - 1) / numCards][(literal - 1) % numCards];
+		} catch (RuntimeException e) {
+			return ERROR;
+		} catch (StackOverflowError e) {
+			return ERROR;
+		}
+	}
+
+	/*
+	 * Decide a check by trying every assignment of the variables that occur.
+	 *
+	 * @return the answer makeQuery() or testLiteral() should give, or null if there are too many variables
+	 */
+	private static Integer bruteForce(ArrayList<int[]> clauses, int literal) {
+		TreeMap<Integer, Integer> index = new TreeMap<Integer, Integer>();
+		for (int[] clause : clauses) {
+			for (int l : clause) {
+				if (!index.containsKey(Math.abs(l))) {
+					index.put(Math.abs(l), index.size());
+				}
+			}
+		}
+		if (literal != 0 && !index.containsKey(Math.abs(literal))) {
+			index.put(Math.abs(literal), index.size());
+		}
+		if (index.size() > MAX_ORACLE_VARS) {
+			return null;
+		}
+
+		boolean canBeTrue = false;
+		boolean canBeFalse = false;
+		for (int assignment = 0; assignment < (1 << index.size()); assignment++) {
+			boolean satisfied = true;
+			for (int[] clause : clauses) {
+				boolean clauseSatisfied = false;
+				for (int l : clause) {
+					if (isTrue(assignment, index.get(Math.abs(l)), l)) {
+						clauseSatisfied = true;
+						break;
+					}
+				}
+				if (!clauseSatisfied) {
+					satisfied = false;
+					break;
+				}
+			}
+			if (satisfied) {
+				if (literal == 0 || isTrue(assignment, index.get(Math.abs(literal)), literal)) {
+					canBeTrue = true;
+				} else {
+					canBeFalse = true;
+				}
+			}
+		}
+		if (literal == 0) {
+			return canBeTrue ? SATSolver.TRUE : SATSolver.FALSE;
+		} else if (canBeTrue && canBeFalse) {
+			return SATSolver.UNKNOWN;
+		}
+		return canBeTrue ? SATSolver.TRUE : SATSolver.FALSE;
+	}
+
+	private static boolean isTrue(int assignment, int bit, int literal) {
+		boolean value = ((assignment >> bit) & 1) == 1;
+		return (literal > 0) ? value : !value;
+	}
+
+	/*
+	 * Shrink a disagreeing check: remove ever smaller runs of clauses, and then single literals, as long as the
+	 * answers still disagree.
+	 *
+	 * @param withReasoner	whether the answer of a ClueReasoner is compared too
+	 */
+	private ArrayList<int[]> minimize(ArrayList<int[]> clauses, int literal, boolean withReasoner) {
+		ArrayList<int[]> current = new ArrayList<int[]>(clauses);
+		int chunk = Math.max(1, current.size() / 2);
+		while (true) {
+			boolean removed = false;
+			for (int start = 0; start < current.size();) {
+				ArrayList<int[]> candidate = new ArrayList<int[]>(current.subList(0, start));
+				candidate.addAll(current.subList(Math.min(current.size(), start + chunk), current.size()));
+				if (!agree(minimizingAnswers(candidate, literal, withReasoner))) {
+					current = candidate;
+					removed = true;
+				} else {
+					start += chunk;
+				}
+			}
+			if (!removed) {
+				if (chunk == 1) {
+					break;
+				}
+				chunk /= 2;
+			}
+		}
+
+		for (int c = 0; c < current.size(); c++) {
+			for (int l = 0; l < current.get(c).length && current.get(c).length > 1;) {
+				int[] clause = current.get(c);
+				int[] shorter = new int[clause.length - 1];
+				System.arraycopy(clause, 0, shorter, 0, l);
+				System.arraycopy(clause, l + 1, shorter, l, clause.length - l - 1);
+				current.set(c, shorter);
+				if (agree(minimizingAnswers(current, literal, withReasoner))) {
+					current.set(c, clause);
+					l++;
+				}
+			}
+		}
+		return current;
+	}
+
+	private LinkedHashMap<String, Integer> minimizingAnswers(ArrayList<int[]> clauses, int literal,
+			boolean withReasoner) {
+		LinkedHashMap<String, Integer> answers = answer(clauses, literal, null);
+		if (withReasoner) {
+			answers.put(REASONER, reasonerAnswer(clauses, literal));
+		}
+		return answers;
+	}
+
+	// Write a check in DIMACS format, with what it asks and the answers in comment lines.
+	private File save(String label, ArrayList<int[]> clauses, int literal, Map<String, Integer> answers,
+			boolean minimized) throws IOException {
+		failureDir.mkdirs();
+		File file = new File(failureDir, "disagreement-" + seed + "-" + numDisagreements + ".cnf");
+		int maxVar = Math.abs(literal);
+		for (int[] clause : clauses) {
+			for (int l : clause) {
+				maxVar = Math.max(maxVar, Math.abs(l));
+			}
+		}
+		PrintStream out = new PrintStream(new FileOutputStream(file));
+		try {
+			out.println("c " + label + (minimized ? ", minimized" : ", not minimized"));
+			out.println("c query: " + describeQuery(literal));
+			out.println("c answers: " + describe(answers));
+			out.println("p cnf " + maxVar + " " + clauses.size());
+			for (int[] clause : clauses) {
+				for (int l : clause) {
+					out.print(l + " ");
+				}
+				out.println("0");
+			}
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static boolean agree(Map<String, Integer> answers) {
+		return new HashSet<Integer>(answers.values()).size() <= 1;
+	}
+
+	private static String describeQuery(int literal) {
+		return (literal == 0) ? "satisfiability" : "testLiteral(" + literal + ")";
+	}
+
+	private static String describe(Map<String, Integer> answers) {
+		StringBuilder description = new StringBuilder();
+		for (Map.Entry<String, Integer> entry : answers.entrySet()) {
+			int answer = entry.getValue();
+			description.append((description.length() > 0) ? " " : "").append(entry.getKey()).append("=")
+					.append((answer == ERROR) ? "error" : (answer == SATSolver.TRUE) ? "Y"
+							: (answer == SATSolver.FALSE) ? "n" : "-");
+		}
+		return description.toString();
+	}
+
+	private void addTime(String engine, String suite, long time) {
+		String key = engine + "." + suite;
+		Long old = nanos.get(key);
+		nanos.put(key, (old == null) ? time : old + time);
+	}
+
+	public static void main(String[] args) throws IOException {
+		long seed = 1;
+		int numCnfs = 200;
+		int numGames = 3;
+		String baselineFile = DEFAULT_BASELINE;
+		double threshold = DEFAULT_THRESHOLD;
+		boolean saveBaseline = false;
+		String failureDir = DEFAULT_FAILURE_DIR;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if (args[i].equals("-cnfs")) {
+				numCnfs = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-games")) {
+				numGames = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-baseline")) {
+				baselineFile = args[++i];
+			} else if (args[i].equals("-threshold")) {
+				threshold = Double.parseDouble(args[++i]);
+			} else if (args[i].equals("-save-baseline")) {
+				saveBaseline = true;
+			} else if (args[i].equals("-failures")) {
+				failureDir = args[++i];
+			} else {
+				System.err.println("Unknown option: " + args[i]);
+				System.exit(1);
+			}
+		}
+
+		SolverFuzzer fuzzer = new SolverFuzzer(seed, numCnfs, numGames, new File(failureDir));
+		fuzzer.addDefaultEngines();
+		int disagreements;
+		try {
+			disagreements = fuzzer.run();
+		} finally {
+			fuzzer.close();
+		}
+		System.out.println(fuzzer.getNumChecks() + " checks, " + disagreements + " disagreements");
+
+		Properties timings = fuzzer.getTimings();
+		System.out.println("Engine.suite\t\tms");
+		for (String key : new TreeSet<String>(timings.stringPropertyNames())) {
+			if (!key.equals("settings")) {
+				System.out.println(key + "\t" + (key.length() < 16 ? "\t" : "") + timings.getProperty(key));
+			}
+		}
+
+		boolean failed = disagreements > 0;
+		File baseline = new File(baselineFile);
+		if (saveBaseline) {
+			OutputStream out = new FileOutputStream(baseline);
+			try {
+				timings.store(out, "SolverFuzzer timings in milliseconds");
+			} finally {
+				out.close();
+			}
+			System.out.println("Saved baseline to " + baseline);
+		} else if (baseline.exists()) {
+			Properties old = new Properties();
+			InputStream in = new FileInputStream(baseline);
+			try {
+				old.load(in);
+			} finally {
+				in.close();
+			}
+			if (!timings.getProperty("settings").equals(old.getProperty("settings"))) {
+				System.out.println("Baseline " + baseline + " was made with other settings, timings not compared");
+			}
+			for (String regression : findRegressions(timings, old, threshold)) {
+				System.out.println("SLOWER than baseline by more than " + Math.round(100 * threshold) + "%: "
+						+ regression);
+				failed = true;
+			}
+		} else {
+			System.out.println("No baseline at " + baseline + ", timings not compared");
+		}
+		System.exit(failed ? 1 : 0);
+	}
+}
@@ -0,0 +1,277 @@
+/**
+ * Planner that ranks the suggestions a player can make next by how much they are expected to fill in the
+ * notepad. For every candidate (suspect, weapon, room), each possible answer to the suggestion is recorded
+ * on a copy of the knowledge base, and the copy's models are counted with a ModelCounter. All models are
+ * taken as equally likely, and a refuter holding several of the suggested cards as equally likely to show
+ * each of them, so the likelihood of an answer is its number of models, with each model divided among the
+ * cards its refuter could show. The marginal counts tell which notepad cells the answer would settle.
+ * Candidates are evaluated in parallel on a fork-join pool until the time budget runs out.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class SuggestionPlanner {
+
+	private static final int CANDIDATES_PER_TASK = 4; // candidates a fork-join task evaluates without splitting
+
+	private ClueReasoner reasoner;
+	private ForkJoinPool pool;
+
+	public SuggestionPlanner(ClueReasoner reasoner) {
+		this(reasoner, ForkJoinPool.commonPool());
+	}
+
+	public SuggestionPlanner(ClueReasoner reasoner, ForkJoinPool pool) {
+		this.reasoner = reasoner;
+		this.pool = pool;
+	}
+
+	/**
+	 * Rank the suggestions a player can make by the expected number of notepad cells that the answer will
+	 * determine. Candidates whose uncertain cards are the most uncertain are evaluated first, so when the
+	 * time budget runs out, the candidates left out are the least promising ones.
+	 *
+	 * @param suggester			the player making the suggestion
+	 * @param timeBudgetMillis	the time allowed for evaluating candidates, in milliseconds
+	 *
+	 * @return the evaluated suggestions, best first, or an empty list if the knowledge base is inconsistent
+	 *
+	 * @throws IllegalArgumentException if the suggester is not a player
+	 */
+	public ArrayList<Suggestion> rankSuggestions(String suggester, long timeBudgetMillis) {
+		long deadline = System.nanoTime() + timeBudgetMillis * 1000000L;
+		if (!Arrays.asList(reasoner.getPlayers()).contains(suggester)) {
+			throw new IllegalArgumentException("Illegal player: " + suggester);
+		}
+
+		ModelCounter base = new ModelCounter();
+		for (int[] clause : reasoner.getSolver().clauses) {
+			base.addClause(clause);
+		}
+		if (base.countModels().signum() == 0) {
+			return new ArrayList<Suggestion>();
+		}
+
+		String[] players = reasoner.getPlayers();
+		String caseFile = reasoner.getCaseFile();
+		ArrayList<Integer> openCells = new ArrayList<Integer>();
+		for (String card : reasoner.getCards()) {
+			for (String player : players) {
+				addIfOpen(base, reasoner.getPairNum(player, card), openCells);
+			}
+			addIfOpen(base, reasoner.getPairNum(caseFile, card), openCells);
+		}
+
+		ArrayList<Suggestion> candidates = new ArrayList<Suggestion>();
+		for (String suspect : reasoner.getSuspects()) {
+			for (String weapon : reasoner.getWeapons()) {
+				for (String room : reasoner.getRooms()) {
+					Suggestion candidate = new Suggestion(suspect, weapon, room);
+					candidate.uncertainty = uncertainty(base, suspect) + uncertainty(base, weapon)
+							+ uncertainty(base, room);
+					candidates.add(candidate);
+				}
+			}
+		}
+		Collections.sort(candidates, new Comparator<Suggestion>() {
+			public int compare(Suggestion a, Suggestion b) {
+				return Double.compare(b.uncertainty, a.uncertainty);
+			}
+		});
+
+		pool.invoke(new EvaluationTask(candidates, 0, candidates.size(), base, suggester, openCells, deadline));
+
+		ArrayList<Suggestion> ranking = new ArrayList<Suggestion>();
+		for (Suggestion candidate : candidates) {
+			if (candidate.evaluated) {
+				ranking.add(candidate);
+			}
+		}
+		Collections.sort(ranking, new Comparator<Suggestion>() {
+			public int compare(Suggestion a, Suggestion b) {
+				return Double.compare(b.expectedDetermined, a.expectedDetermined);
+			}
+		});
+		return ranking;
+	}
+
+	/**
+	 * Evaluate one candidate by recording every answer it can get on a copy of the knowledge base. The
+	 * answers are: each player after the suggester showing one of the three cards, or nobody refuting.
+	 *
+	 * @param candidate	the candidate, which receives the result
+	 * @param base		the counter holding the current knowledge base
+	 * @param suggester	the player making the suggestion
+	 * @param openCells	the literals of the notepad cells that are undetermined now
+	 * @param deadline	the value of System.nanoTime() at which evaluation stops
+	 */
+	private void evaluate(Suggestion candidate, ModelCounter base, String suggester, ArrayList<Integer> openCells,
+			long deadline) {
+		String[] players = reasoner.getPlayers();
+		String[] cards = { candidate.suspect, candidate.weapon, candidate.room };
+		int suggesterNum = Arrays.asList(players).indexOf(suggester);
+
+		double weightedDetermined = 0;
+		double totalWeight = 0;
+		int numOutcomes = 0;
+		for (int k = 1; k <= players.length; k++) {
+			String refuter = (k < players.length) ? players[(suggesterNum + k) % players.length] : null;
+			for (int i = 0; i < cards.length; i++) {
+				if (System.nanoTime() > deadline) {
+					return;
+				}
+				ClueReasoner hypothesis = reasoner.withSolver(base.fork());
+				hypothesis.suggest(suggester, cards[0], cards[1], cards[2], refuter, (refuter == null) ? null : cards[i]);
+				ModelCounter counter = (ModelCounter) hypothesis.getSolver();
+				BigInteger count = counter.countModels();
+				if (count.signum() > 0) {
+					int determined = 0;
+					for (int literal : openCells) {
+						BigInteger marginal = counter.getMarginal(literal);
+						if (marginal.signum() == 0 || marginal.equals(count)) {
+							determined++;
+						}
+					}
+					double weight = (refuter == null) ? count.doubleValue()
+							: showingWeight(counter, reasoner.getPlayerNum(refuter), cards, i);
+					weightedDetermined += weight * determined;
+					totalWeight += weight;
+					numOutcomes++;
+				}
+				if (refuter == null) {
+					break; // nobody refuting is a single answer
+				}
+			}
+		}
+		candidate.expectedDetermined = (totalWeight > 0) ? weightedDetermined / totalWeight : 0;
+		candidate.numOutcomes = numOutcomes;
+		candidate.evaluated = true;
+	}
+
+	/**
+	 * Get the likelihood of a refuter showing a card: the number of models in which the refuter holds the card,
+	 * with each model counted 1/h times if the refuter holds h of the suggested cards in it. If the refuter
+	 * holds the card together with another suggested card j or k, in M_j, M_k and M_jk of the N models, this is
+	 * N - M_j/2 - M_k/2 + M_jk/3.
+	 *
+	 * @param counter	the counter that has just counted the models of the answer
+	 * @param refuter	the number of the refuter
+	 * @param cards		the suggested cards
+	 * @param shown		the index of the card shown
+	 */
+	private double showingWeight(ModelCounter counter, int refuter, String[] cards, int shown) {
+		int literalJ = reasoner.getPairNum(refuter, reasoner.getCardNum(cards[(shown + 1) % 3]));
+		int literalK = reasoner.getPairNum(refuter, reasoner.getCardNum(cards[(shown + 2) % 3]));
+		BigInteger count = counter.getModelCount();
+		BigInteger countJ = counter.getMarginal(literalJ);
+		BigInteger countK = counter.getMarginal(literalK);
+		BigInteger countJK = BigInteger.ZERO;
+		if (countJ.signum() > 0 && countK.signum() > 0) {
+			ModelCounter withJ = (ModelCounter) counter.fork();
+			withJ.addClause(new int[] { literalJ });
+			withJ.countModels();
+			countJK = withJ.getMarginal(literalK);
+		}
+		return count.doubleValue() - countJ.doubleValue() / 2 - countK.doubleValue() / 2
+				+ countJK.doubleValue() / 3;
+	}
+
+	private void addIfOpen(ModelCounter counter, int literal, ArrayList<Integer> openCells) {
+		BigInteger marginal = counter.getMarginal(literal);
+		if (marginal.signum() > 0 && !marginal.equals(counter.getModelCount())) {
+			openCells.add(literal);
+		}
+	}
+
+	// The uncertainty of a card's location: 1 minus the probability of its most likely place.
+	private double uncertainty(ModelCounter counter, String card) {
+		double max = counter.getProbability(reasoner.getPairNum(reasoner.getCaseFile(), card));
+		for (String player : reasoner.getPlayers()) {
+			max = Math.max(max, counter.getProbability(reasoner.getPairNum(player, card)));
+		}
+		return 1 - max;
+	}
+
+	/*
+	 * Evaluate a range of candidates, splitting it in halves until it is small enough.
+	 */
+	private class EvaluationTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		ArrayList<Suggestion> candidates;
+		int from;
+		int to;
+		ModelCounter base;
+		String suggester;
+		ArrayList<Integer> openCells;
+		long deadline;
+
+		public EvaluationTask(ArrayList<Suggestion> candidates, int from, int to, ModelCounter base,
+				String suggester, ArrayList<Integer> openCells, long deadline) {
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.base = base;
+			this.suggester = suggester;
+			this.openCells = openCells;
+			this.deadline = deadline;
+		}
+
+		protected void compute() {
+			if (to - from <= CANDIDATES_PER_TASK) {
+				for (int i = from; i < to && System.nanoTime() <= deadline; i++) {
+					evaluate(candidates.get(i), base, suggester, openCells, deadline);
+				}
+			} else {
+				int middle = (from + to) / 2;
+				invokeAll(new EvaluationTask(candidates, from, middle, base, suggester, openCells, deadline),
+						new EvaluationTask(candidates, middle, to, base, suggester, openCells, deadline));
+			}
+		}
+	}
+
+	/*
+	 * A candidate suggestion and the result of its evaluation.
+	 */
+	public static class Suggestion {
+		public final String suspect;
+		public final String weapon;
+		public final String room;
+		public double expectedDetermined; // expected number of open cells determined by the answer
+		public int numOutcomes; // number of answers consistent with the knowledge base
+		boolean evaluated;
+		double uncertainty;
+
+		public Suggestion(String suspect, String weapon, String room) {
+			this.suspect = suspect;
+			this.weapon = weapon;
+			this.room = room;
+		}
+
+		public String toString() {
+			return suspect + " " + weapon + " " + room + "\t" + String.format("%.2f", expectedDetermined);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/**
+ * Unit propagation over a fixed set of clauses. The literals that follow from the clauses alone (decision
+ * level 0) are computed once, and any set of assumed literals can then be propagated on top of them without
+ * changing them. Used for failed-literal probing, lookahead and local simplification.
+ *
+ * @version October 18, 2026
+ *
+
+This program is free software; you can redistribute it and/or
+modify it under the terms of the GNU General Public License
+as published by the Free Software Foundation; either version 2
+of the License, or (at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+Information about the GNU General Public License is available online at:
+  http://www.gnu.org/licenses/
+To receive a copy of the GNU General Public License, write to the Free
+Software Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA
+02111-1307, USA.
+
+ */
+
+import java.util.*;
+
+public class UnitPropagator {
+
+	private int numVars;
+	private int[][] clauses;
+	private int[][] occurrences; // indices of the clauses containing each literal, see index()
+	private int[] fixed; // values of the variables at level 0, or null if the clauses are inconsistent
+
+	public UnitPropagator(List<int[]> clauses) {
+		this.clauses = clauses.toArray(new int[clauses.size()][]);
+		for (int[] clause : this.clauses) {
+			for (int literal : clause) {
+				numVars = Math.max(numVars, Math.abs(literal));
+			}
+		}
+
+		int[] counts = new int[2 * numVars + 2];
+		for (int[] clause : this.clauses) {
+			for (int literal : clause) {
+				counts[index(literal)]++;
+			}
+		}
+		occurrences = new int[counts.length][];
+		for (int i = 0; i < counts.length; i++) {
+			occurrences[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int c = 0; c < this.clauses.length; c++) {
+			for (int literal : this.clauses[c]) {
+				occurrences[index(literal)][counts[index(literal)]++] = c;
+			}
+		}
+
+		// Propagate the unit clauses, and fail on empty clauses.
+		fixed = new int[numVars + 1];
+		int[] queue = new int[numVars];
+		int queueSize = 0;
+		for (int[] clause : this.clauses) {
+			if (clause.length == 0) {
+				fixed = null;
+				return;
+			}
+			if (clause.length == 1) {
+				int value = valueOf(fixed, clause[0]);
+				if (value == SATSolver.FALSE) {
+					fixed = null;
+					return;
+				} else if (value == SATSolver.UNKNOWN) {
+					assign(fixed, clause[0]);
+					queue[queueSize++] = clause[0];
+				}
+			}
+		}
+		if (!propagate(fixed, queue, queueSize)) {
+			fixed = null;
+		}
+	}
+
+	public int getNumVars() {
+		return numVars;
+	}
+
+	/**
+	 * Check if unit propagation alone finds no conflict in the clauses.
+	 *
+	 * @return false if the clauses are inconsistent by unit propagation, true otherwise
+	 */
+	public boolean isConsistent() {
+		return fixed != null;
+	}
+
+	/**
+	 * Get the value of a literal at level 0.
+	 *
+	 * @param literal	the literal
+	 *
+	 * @return TRUE (1) or FALSE (-1) if the literal follows from the clauses by unit propagation, UNKNOWN (0)
+	 * 			otherwise
+	 */
+	public int valueAtLevelZero(int literal) {
+		return valueOf(fixed, literal);
+	}
+
+	/**
+	 * Make a literal true at level 0 for good, for literals known to follow from the clauses.
+	 *
+	 * @param literal	the literal
+	 *
+	 * @return false if this led to a conflict, which makes the clauses inconsistent, true otherwise
+	 */
+	public boolean fix(int literal) {
+		int[] values = propagate(new int[] { literal });
+		fixed = values;
+		return values != null;
+	}
+
+	/**
+	 * Propagate a set of assumed literals on top of the level-0 values.
+	 *
+	 * @param assumptions	the assumed literals
+	 *
+	 * @return the value of every variable after propagation, indexed by variable, or null on a conflict
+	 */
+	public int[] propagate(int[] assumptions) {
+		if (fixed == null) {
+			return null;
+		}
+		int[] values = fixed.clone();
+		int[] queue = new int[numVars + 1];
+		int queueSize = 0;
+		for (int literal : assumptions) {
+			if (Math.abs(literal) > numVars) {
+				continue; // in no clause, so it implies nothing
+			}
+			int value = valueOf(values, literal);
+			if (value == SATSolver.FALSE) {
+				return null;
+			} else if (value == SATSolver.UNKNOWN) {
+				assign(values, literal);
+				queue[queueSize++] = literal;
+			}
+		}
+		return propagate(values, queue, queueSize) ? values : null;
+	}
+
+	/**
+	 * Get the value of a literal in an assignment made by this propagator.
+	 *
+	 * @param values	the assignment
+	 * @param literal	the literal
+	 *
+	 * @return TRUE (1) if the literal is true, FALSE (-1) if it is false, UNKNOWN (0) otherwise
+	 */
+	public static int valueOf(int[] values, int literal) {
+		int var = Math.abs(literal);
+		if (values == null) {
+			return SATSolver.FALSE;
+		}
+		if (var >= values.length || values[var] == SATSolver.UNKNOWN) {
+			return SATSolver.UNKNOWN;
+		}
+		return (literal > 0) ? values[var] : -values[var];
+	}
+
+	// Propagate the literals in the queue, which are already assigned.
+	private boolean propagate(int[] values, int[] queue, int queueSize) {
+		for (int head = 0; head < queueSize; head++) {
+			for (int c : occurrences[index(-queue[head])]) {
+				int[] clause = clauses[c];
+				int unassigned = 0;
+				int lastUnassigned = 0;
+				boolean satisfied = false;
+				for (int literal : clause) {
+					int value = valueOf(values, literal);
+					if (value == SATSolver.TRUE) {
+						satisfied = true;
+						break;
+					} else if (value == SATSolver.UNKNOWN) {
+						unassigned++;
+						lastUnassigned = literal;
+					}
+				}
+				if (satisfied) {
+					continue;
+				}
+				if (unassigned == 0) {
+					return false;
+				}
+				if (unassigned == 1) {
+					assign(values, lastUnassigned);
+					queue[queueSize++] = lastUnassigned;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void assign(int[] values, int literal) {
+		values[Math.abs(literal)] = (literal > 0) ? SATSolver.TRUE : SATSolver.FALSE;
+	}
+
+	private static int index(int literal) {
+		return (literal > 0) ? 2 * literal : -2 * literal + 1;
+	}
+}
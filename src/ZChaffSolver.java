@@ -30,6 +30,10 @@ import java.io.*;
 import java.util.*;
 
 public class ZChaffSolver extends SATSolver {
+
+	protected SATSolver newSolver() {
+		return new ZChaffSolver();
+	}
 	
 	public boolean makeQuery() {
         try {